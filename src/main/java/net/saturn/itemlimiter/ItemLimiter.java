@@ -1,25 +1,94 @@
 package net.saturn.itemlimiter;
 
+import net.saturn.itemlimiter.api.ItemLimiterService;
 import net.saturn.itemlimiter.command.ItemLimitCommand;
+import net.saturn.itemlimiter.container.ContainerResolverRegistry;
+import net.saturn.itemlimiter.listeners.AutomationListener;
+import net.saturn.itemlimiter.listeners.ContainerContentsListener;
 import net.saturn.itemlimiter.listeners.ItemLimitListener;
 import net.saturn.itemlimiter.listeners.VillagerTradeListener;
+import net.saturn.itemlimiter.managers.AcquisitionLimitManager;
+import net.saturn.itemlimiter.managers.AuditLogManager;
+import net.saturn.itemlimiter.managers.EnforcementAnalytics;
+import net.saturn.itemlimiter.managers.EnforcementQueue;
+import net.saturn.itemlimiter.managers.EnforcementWaves;
+import net.saturn.itemlimiter.managers.GlobalCapManager;
+import net.saturn.itemlimiter.managers.InventoryUpdateScheduler;
 import net.saturn.itemlimiter.managers.ItemLimitManager;
+import net.saturn.itemlimiter.managers.LimitQueryService;
+import net.saturn.itemlimiter.managers.MetricsManager;
+import net.saturn.itemlimiter.managers.SyncManager;
+import net.saturn.itemlimiter.simulation.LimitSimulator;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public final class ItemLimiter extends JavaPlugin {
 
     private ItemLimitManager itemLimitManager;
+    private AuditLogManager auditLogManager;
+    private EnforcementAnalytics enforcementAnalytics;
+    private MetricsManager metricsManager;
+    private SyncManager syncManager;
+    private InventoryUpdateScheduler inventoryUpdateScheduler;
+    private EnforcementQueue enforcementQueue;
+    private EnforcementWaves enforcementWaves;
+    private VillagerTradeListener villagerTradeListener;
+    private LimitSimulator limitSimulator;
+    private GlobalCapManager globalCapManager;
+    private AcquisitionLimitManager acquisitionLimitManager;
 
 
     @Override
     public void onEnable() {
         // Plugin startup logic
 
+        metricsManager = new MetricsManager(this);
+        metricsManager.start();
+
+        enforcementAnalytics = new EnforcementAnalytics(getConfig().getLong("analytics.window-minutes", 60L) * 60_000L,
+                getConfig().getInt("analytics.tracked-players", 100));
+
+        auditLogManager = new AuditLogManager(this);
+        auditLogManager.start();
+
         itemLimitManager = new ItemLimitManager(this);
         itemLimitManager.load();
 
+        // Lets backpack plugins register their own container resolvers
+        getServer().getServicesManager().register(ContainerResolverRegistry.class,
+                itemLimitManager.getContainerResolvers(), this, ServicePriority.Normal);
+
+        // Lets kit, shop and crate plugins check headroom instead of rescanning inventories
+        getServer().getServicesManager().register(ItemLimiterService.class,
+                new LimitQueryService(itemLimitManager), this, ServicePriority.Normal);
+
+        syncManager = new SyncManager(this, itemLimitManager);
+        syncManager.start();
+
+        inventoryUpdateScheduler = new InventoryUpdateScheduler();
+        getServer().getPluginManager().registerEvents(inventoryUpdateScheduler, this);
+
+        enforcementQueue = new EnforcementQueue(getLogger(), getConfig().getInt("enforcement.max-tasks-per-tick", 50));
+        enforcementQueue.limitPerTick(EnforcementQueue.Kind.JOIN_CHECK, getConfig().getInt("enforcement.max-join-checks-per-tick", 4));
+        getServer().getPluginManager().registerEvents(enforcementQueue, this);
+
+        enforcementWaves = new EnforcementWaves(this, itemLimitManager);
+        limitSimulator = new LimitSimulator(this, itemLimitManager.getContainerResolvers());
+
+        globalCapManager = new GlobalCapManager(this, itemLimitManager.getContainerResolvers());
+        globalCapManager.load();
+
+        acquisitionLimitManager = new AcquisitionLimitManager(this, itemLimitManager.getStorage());
+        acquisitionLimitManager.load();
+
         getServer().getPluginManager().registerEvents(new ItemLimitListener(this, itemLimitManager), this);
-        getServer().getPluginManager().registerEvents(new VillagerTradeListener(this, itemLimitManager), this);
+        villagerTradeListener = new VillagerTradeListener(this, itemLimitManager);
+        getServer().getPluginManager().registerEvents(villagerTradeListener, this);
+        getServer().getPluginManager().registerEvents(new AutomationListener(itemLimitManager), this);
+        getServer().getPluginManager().registerEvents(new ContainerContentsListener(this, itemLimitManager), this);
+        getServer().getPluginManager().registerEvents(globalCapManager, this);
+        getServer().getPluginManager().registerEvents(acquisitionLimitManager, this);
 
         getCommand("itemlimit").setExecutor(new ItemLimitCommand(this, itemLimitManager));
 
@@ -31,9 +100,45 @@ public final class ItemLimiter extends JavaPlugin {
     public void onDisable() {
         // Plugin shutdown logic
 
+        if (villagerTradeListener != null) {
+            villagerTradeListener.restoreCappedRecipes();
+        }
+
+        // Flush pending limit sync work before the final save
+        if (syncManager != null) {
+            syncManager.stop();
+        }
+
+        // Online holdings are counted one last time so they stay in circulation across the restart
+        if (globalCapManager != null) {
+            globalCapManager.stop();
+        }
+
         // Save item limits
         if (itemLimitManager != null) {
+            // Players still online at shutdown are kicked after plugins are disabled,
+            // so their quit events never reach us; remember their fingerprints here
+            for (Player player : getServer().getOnlinePlayers()) {
+                itemLimitManager.getInventoryFingerprints().record(player);
+            }
+            if (acquisitionLimitManager != null) {
+                acquisitionLimitManager.stop();
+            }
             itemLimitManager.save();
+            itemLimitManager.close();
+        }
+
+        // Flush pending audit entries
+        if (auditLogManager != null) {
+            auditLogManager.stop();
+        }
+
+        if (metricsManager != null) {
+            metricsManager.stop();
+        }
+
+        if (limitSimulator != null) {
+            limitSimulator.stop();
         }
 
     }
@@ -41,4 +146,44 @@ public final class ItemLimiter extends JavaPlugin {
     public ItemLimitManager getItemLimitManager() {
         return itemLimitManager;
     }
+
+    public AuditLogManager getAuditLogManager() {
+        return auditLogManager;
+    }
+
+    public EnforcementAnalytics getEnforcementAnalytics() {
+        return enforcementAnalytics;
+    }
+
+    public MetricsManager getMetricsManager() {
+        return metricsManager;
+    }
+
+    public SyncManager getSyncManager() {
+        return syncManager;
+    }
+
+    public InventoryUpdateScheduler getInventoryUpdateScheduler() {
+        return inventoryUpdateScheduler;
+    }
+
+    public EnforcementQueue getEnforcementQueue() {
+        return enforcementQueue;
+    }
+
+    public EnforcementWaves getEnforcementWaves() {
+        return enforcementWaves;
+    }
+
+    public LimitSimulator getLimitSimulator() {
+        return limitSimulator;
+    }
+
+    public GlobalCapManager getGlobalCapManager() {
+        return globalCapManager;
+    }
+
+    public AcquisitionLimitManager getAcquisitionLimitManager() {
+        return acquisitionLimitManager;
+    }
 }
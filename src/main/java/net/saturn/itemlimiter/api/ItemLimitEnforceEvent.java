@@ -0,0 +1,68 @@
+package net.saturn.itemlimiter.api;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+
+/**
+ * Called on the main thread before the limiter removes excess items of one
+ * material from a player (dropping them at their feet). Cancelling it leaves
+ * that material untouched this time; the next check will try again.
+ */
+public class ItemLimitEnforceEvent extends Event implements Cancellable {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final Player player;
+    private final Material material;
+    private final int limit;
+    private final int amount;
+    private boolean cancelled;
+
+    public ItemLimitEnforceEvent(Player player, Material material, int limit, int amount) {
+        this.player = player;
+        this.material = material;
+        this.limit = limit;
+        this.amount = amount;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Items about to be removed.
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
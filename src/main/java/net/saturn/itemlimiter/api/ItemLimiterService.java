@@ -0,0 +1,62 @@
+package net.saturn.itemlimiter.api;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+/**
+ * Read-only view of the limit table and player counts for other plugins (kits,
+ * shops, crates), registered with Bukkit's ServicesManager:
+ * <pre>
+ * ItemLimiterService limits = Bukkit.getServicesManager().load(ItemLimiterService.class);
+ * int give = Math.min(amount, limits.getHeadroom(player, Material.TOTEM_OF_UNDYING));
+ * </pre>
+ * Queries reuse the limiter's cached counts (ender chest contents are not
+ * rescanned) and allocate no collections. Call them from the main thread only.
+ * To react to items being stripped, listen for {@link ItemLimitEnforceEvent}.
+ */
+public interface ItemLimiterService {
+
+    /**
+     * Headroom reported for materials that aren't limited.
+     */
+    int UNLIMITED = Integer.MAX_VALUE;
+
+    boolean isLimited(Material material);
+
+    boolean isBanned(Material material);
+
+    /**
+     * The maximum a player may hold, 0 if banned, or -1 if the material isn't limited.
+     */
+    int getLimit(Material material);
+
+    /**
+     * How many more items of the material the player can receive before the
+     * limiter removes any: 0 if banned or at the limit, {@link #UNLIMITED} if not limited.
+     * Counts the inventory, ender chest and items nested in bundles and shulker boxes.
+     */
+    int getHeadroom(Player player, Material material);
+
+    /**
+     * Bulk variant of {@link #getHeadroom(Player, Material)}: writes the headroom of
+     * {@code materials[i]} into {@code headroom[i]}.
+     *
+     * @throws IllegalArgumentException if {@code headroom} is shorter than {@code materials}
+     */
+    void getHeadroom(Player player, Material[] materials, int[] headroom);
+
+    /**
+     * Writes how many of {@code materials[i]} the player holds (inventory, ender
+     * chest and nested items) into {@code counts[i]}, in one pass over the inventory.
+     * Works for any material, limited or not.
+     *
+     * @throws IllegalArgumentException if {@code counts} is shorter than {@code materials}
+     */
+    void countItems(Player player, Material[] materials, int[] counts);
+
+    /**
+     * Changes whenever a limit is added, changed or removed; callers caching
+     * answers can compare it to tell if they're stale.
+     */
+    long getLimitVersion();
+}
@@ -1,16 +1,25 @@
 package net.saturn.itemlimiter.command;
 
 import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.managers.AcquisitionLimitManager;
+import net.saturn.itemlimiter.managers.AuditLogManager;
+import net.saturn.itemlimiter.managers.EnforcementAnalytics;
+import net.saturn.itemlimiter.managers.GlobalCapManager;
 import net.saturn.itemlimiter.managers.ItemLimitManager;
+import net.saturn.itemlimiter.simulation.LimitSimulator;
+import net.saturn.itemlimiter.storage.AcquisitionLimit;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import org.bukkit.entity.Player;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -50,6 +59,20 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
                 return handleClear(sender);
             case "check":
                 return handleCheck(sender, args);
+            case "audit":
+                return handleAudit(sender, args);
+            case "top":
+                return handleTop(sender, args);
+            case "simulate":
+                return handleSimulate(sender, args);
+            case "cap":
+                return handleCap(sender, args);
+            case "caps":
+                return handleCaps(sender);
+            case "rate":
+                return handleRate(sender, args);
+            case "rates":
+                return handleRates(sender);
             default:
                 sendHelp(sender);
                 return true;
@@ -103,6 +126,7 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
             }
         }
 
+        Integer previousLimit = itemLimitManager.isItemLimited(material) ? itemLimitManager.getLimit(material) : null;
         itemLimitManager.addItem(material, maxQuantity);
 
         if (maxQuantity == 0) {
@@ -126,6 +150,11 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
             Bukkit.broadcastMessage(colorize(message));
         }
 
+        // Only a new or lowered limit can leave players over it
+        if (previousLimit == null || maxQuantity < previousLimit) {
+            plugin.getEnforcementWaves().start(material, sender);
+        }
+
         return true;
     }
 
@@ -276,6 +305,264 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    private boolean handleAudit(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(colorize("&cUsage: /itemlimit audit <player>"));
+            return true;
+        }
+
+        String target = args[1];
+        AuditLogManager auditLog = plugin.getAuditLogManager();
+
+        // Read the log files off the main thread, then reply on it
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<AuditLogManager.Entry> entries = auditLog.readRecent(target, 10);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (entries.isEmpty()) {
+                    sender.sendMessage(colorize("&eNo audit entries found for &6" + target + "&e."));
+                    return;
+                }
+
+                SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd HH:mm:ss");
+                sender.sendMessage(colorize("&6&m----------&r &e&lAudit: " + target + " &6&m----------"));
+                for (AuditLogManager.Entry entry : entries) {
+                    sender.sendMessage(colorize("&7" + dateFormat.format(new Date(entry.time()))
+                            + " &c" + entry.action().name()
+                            + " &6" + entry.amount() + " &e" + formatMaterialName(entry.material())
+                            + " &8@ " + entry.world() + " " + entry.x() + ", " + entry.y() + ", " + entry.z()));
+                }
+                sender.sendMessage(colorize("&6&m---------------------------------------"));
+            });
+        });
+
+        return true;
+    }
+
+    private boolean handleTop(CommandSender sender, String[] args) {
+        EnforcementAnalytics analytics = plugin.getEnforcementAnalytics();
+        String view = args.length >= 2 ? args[1].toLowerCase() : "all";
+
+        if (view.equals("reset")) {
+            analytics.reset();
+            sender.sendMessage(colorize("&aEnforcement analytics reset."));
+            return true;
+        }
+        if (!view.equals("all") && !view.equals("players") && !view.equals("materials")) {
+            sender.sendMessage(colorize("&cUsage: /itemlimit top [players|materials|reset]"));
+            return true;
+        }
+
+        sender.sendMessage(colorize("&6&m----------&r &e&lTop Enforcement &7(last " + analytics.coveredMinutes()
+                + "m) &6&m----------"));
+        if (!view.equals("players")) {
+            sender.sendMessage(colorize("&eMaterials:"));
+            sendRanking(sender, analytics.topMaterials(10), true);
+        }
+        if (!view.equals("materials")) {
+            sender.sendMessage(colorize("&ePlayers:"));
+            sendRanking(sender, analytics.topPlayers(10), false);
+        }
+        sender.sendMessage(colorize("&6&m---------------------------------------"));
+        return true;
+    }
+
+    private boolean handleSimulate(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage(colorize("&cUsage: /itemlimit simulate <item> <limit> [offline]"));
+            sender.sendMessage(colorize("&7Example: /itemlimit simulate TOTEM_OF_UNDYING 2 offline"));
+            return true;
+        }
+
+        Material material;
+        try {
+            material = Material.valueOf(args[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(colorize("&cInvalid item: &e" + args[1]));
+            return true;
+        }
+
+        int limit;
+        try {
+            limit = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(colorize("&cInvalid quantity! Must be a number."));
+            return true;
+        }
+        if (limit < 0) {
+            sender.sendMessage(colorize("&cQuantity cannot be negative!"));
+            return true;
+        }
+
+        boolean offline = args.length >= 4 && args[3].equalsIgnoreCase("offline");
+        sender.sendMessage(colorize("&7Simulating a limit of &6" + limit + " &7on &e" + formatMaterialName(material)
+                + (offline ? " &7for online and offline players..." : " &7for online players...")));
+
+        plugin.getLimitSimulator().simulate(material, limit, offline, result -> {
+            sender.sendMessage(colorize("&6&m----------&r &e&lSimulation: " + formatMaterialName(material)
+                    + " ≤ " + limit + " &6&m----------"));
+            sender.sendMessage(colorize("&7Scanned: &e" + result.online() + " &7online, &e" + result.offline()
+                    + " &7offline" + (result.unreadable() > 0 ? " &8(" + result.unreadable() + " unreadable)" : "")));
+            sender.sendMessage(colorize("&7Affected players: &6" + result.affectedPlayers()
+                    + " &7- items that would be removed: &6" + result.itemsRemoved()));
+
+            if (result.affectedPlayers() > 0) {
+                int[] buckets = LimitSimulator.EXCESS_BUCKETS;
+                StringBuilder distribution = new StringBuilder("&7Excess per player:");
+                for (int i = 0; i < buckets.length; i++) {
+                    String range = i + 1 < buckets.length ? buckets[i] + "-" + (buckets[i + 1] - 1) : buckets[i] + "+";
+                    distribution.append(" &8[&7").append(range).append(": &e").append(result.distribution()[i]).append("&8]");
+                }
+                sender.sendMessage(colorize(distribution.toString()));
+
+                for (LimitSimulator.Affected affected : result.top()) {
+                    String name = affected.name() != null ? affected.name()
+                            : Bukkit.getOfflinePlayer(affected.player()).getName();
+                    sender.sendMessage(colorize("  &8• &e" + (name != null ? name : affected.player().toString())
+                            + " &7has &6" + affected.count() + " &7(-" + (affected.count() - limit) + ")"));
+                }
+            }
+            sender.sendMessage(colorize("&6&m---------------------------------------"));
+        });
+        return true;
+    }
+
+    private boolean handleCap(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sender.sendMessage(colorize("&cUsage: /itemlimit cap <item> <max|remove>"));
+            sender.sendMessage(colorize("&7Example: /itemlimit cap DRAGON_EGG 3"));
+            return true;
+        }
+
+        Material material;
+        try {
+            material = Material.valueOf(args[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(colorize("&cInvalid item: &e" + args[1]));
+            return true;
+        }
+
+        GlobalCapManager globalCaps = plugin.getGlobalCapManager();
+        if (args[2].equalsIgnoreCase("remove")) {
+            if (globalCaps.removeCap(material)) {
+                sender.sendMessage(colorize("&e" + formatMaterialName(material) + " &ano longer has a server-wide cap!"));
+            } else {
+                sender.sendMessage(colorize("&e" + formatMaterialName(material) + " &7has no server-wide cap."));
+            }
+            return true;
+        }
+
+        int max;
+        try {
+            max = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(colorize("&cInvalid quantity! Must be a number."));
+            return true;
+        }
+        if (max < 0) {
+            sender.sendMessage(colorize("&cQuantity cannot be negative!"));
+            return true;
+        }
+
+        globalCaps.setCap(material, max);
+        sender.sendMessage(colorize("&e" + formatMaterialName(material) + " &ccapped server-wide at &6" + max
+                + " &7(currently &e" + globalCaps.getTotal(material) + "&7 in circulation)"));
+        return true;
+    }
+
+    private boolean handleCaps(CommandSender sender) {
+        Map<Material, Integer> caps = plugin.getGlobalCapManager().getCaps();
+        if (caps.isEmpty()) {
+            sender.sendMessage(colorize("&7No server-wide caps set."));
+            return true;
+        }
+
+        sender.sendMessage(colorize("&6&m----------&r &e&lServer-wide Caps &6&m----------"));
+        for (Map.Entry<Material, Integer> entry : caps.entrySet()) {
+            long total = plugin.getGlobalCapManager().getTotal(entry.getKey());
+            String color = total >= entry.getValue() ? "&c" : "&a";
+            sender.sendMessage(colorize("  &8• &e" + formatMaterialName(entry.getKey()) + " &7- " + color + total
+                    + "&7/&6" + entry.getValue()));
+        }
+        sender.sendMessage(colorize("&6&m---------------------------------------"));
+        return true;
+    }
+
+    private boolean handleRate(CommandSender sender, String[] args) {
+        if (args.length < 3 || (args.length < 4 && !args[2].equalsIgnoreCase("remove"))) {
+            sender.sendMessage(colorize("&cUsage: /itemlimit rate <item> <max> <window-minutes>"));
+            sender.sendMessage(colorize("&cUsage: /itemlimit rate <item> remove"));
+            sender.sendMessage(colorize("&7Example: /itemlimit rate ENCHANTED_GOLDEN_APPLE 16 60"));
+            return true;
+        }
+
+        Material material;
+        try {
+            material = Material.valueOf(args[1].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage(colorize("&cInvalid item: &e" + args[1]));
+            return true;
+        }
+
+        AcquisitionLimitManager acquisitionLimits = plugin.getAcquisitionLimitManager();
+        if (args[2].equalsIgnoreCase("remove")) {
+            if (acquisitionLimits.removeLimit(material)) {
+                sender.sendMessage(colorize("&e" + formatMaterialName(material) + " &ano longer has an acquisition limit!"));
+            } else {
+                sender.sendMessage(colorize("&e" + formatMaterialName(material) + " &7has no acquisition limit."));
+            }
+            return true;
+        }
+
+        int max;
+        int windowMinutes;
+        try {
+            max = Integer.parseInt(args[2]);
+            windowMinutes = Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(colorize("&cInvalid quantity! Must be a number."));
+            return true;
+        }
+        if (max < 0 || windowMinutes < 1) {
+            sender.sendMessage(colorize("&cQuantity cannot be negative and the window must be at least 1 minute!"));
+            return true;
+        }
+
+        acquisitionLimits.setLimit(material, max, windowMinutes);
+        sender.sendMessage(colorize("&e" + formatMaterialName(material) + " &climited to &6" + max
+                + " &cacquired per &6" + windowMinutes + " &cminutes"));
+        return true;
+    }
+
+    private boolean handleRates(CommandSender sender) {
+        Map<Material, AcquisitionLimit> limits = plugin.getAcquisitionLimitManager().getLimits();
+        if (limits.isEmpty()) {
+            sender.sendMessage(colorize("&7No acquisition limits set."));
+            return true;
+        }
+
+        sender.sendMessage(colorize("&6&m----------&r &e&lAcquisition Limits &6&m----------"));
+        for (Map.Entry<Material, AcquisitionLimit> entry : limits.entrySet()) {
+            sender.sendMessage(colorize("  &8• &e" + formatMaterialName(entry.getKey()) + " &7- &6"
+                    + entry.getValue().max() + " &7per &6" + entry.getValue().windowMinutes() + " &7min"));
+        }
+        sender.sendMessage(colorize("&6&m---------------------------------------"));
+        return true;
+    }
+
+    private void sendRanking(CommandSender sender, List<EnforcementAnalytics.Ranked> ranking, boolean materials) {
+        if (ranking.isEmpty()) {
+            sender.sendMessage(colorize("  &7No enforcement actions recorded."));
+            return;
+        }
+        int rank = 1;
+        for (EnforcementAnalytics.Ranked entry : ranking) {
+            String name = materials ? formatMaterialName(Material.valueOf(entry.name())) : entry.name();
+            // Sketch counts can be overestimated; show the bound when there is one
+            String error = entry.error() > 0 ? " &8(±" + entry.error() + ")" : "";
+            sender.sendMessage(colorize("  &7" + rank++ + ". &e" + name + " &7- &6" + entry.count() + error));
+        }
+    }
+
     private void sendHelp(CommandSender sender) {
         sender.sendMessage(colorize("&6&m----------&r &e&lItem Limiter &6&m----------"));
         sender.sendMessage(colorize("&e/itemlimit add <item> [quantity] &7- Limit an item"));
@@ -286,6 +573,13 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(colorize("&e/itemlimit list [page] &7- List all limited items"));
         sender.sendMessage(colorize("&e/itemlimit check <item> &7- Check if item is limited"));
         sender.sendMessage(colorize("&e/itemlimit clear &7- Clear all limited items"));
+        sender.sendMessage(colorize("&e/itemlimit audit <player> &7- Show recent enforcement actions"));
+        sender.sendMessage(colorize("&e/itemlimit top [players|materials|reset] &7- Show who triggers enforcement most"));
+        sender.sendMessage(colorize("&e/itemlimit simulate <item> <limit> [offline] &7- Preview who a limit would affect"));
+        sender.sendMessage(colorize("&e/itemlimit cap <item> <max|remove> &7- Cap an item server-wide"));
+        sender.sendMessage(colorize("&e/itemlimit caps &7- List server-wide caps and current totals"));
+        sender.sendMessage(colorize("&e/itemlimit rate <item> <max> <minutes> &7- Limit acquisitions per time window"));
+        sender.sendMessage(colorize("&e/itemlimit rates &7- List acquisition limits"));
         sender.sendMessage(colorize("&6&m---------------------------------------"));
     }
 
@@ -314,9 +608,12 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            completions.addAll(Arrays.asList("add", "remove", "list", "check", "clear"));
+            completions.addAll(Arrays.asList("add", "remove", "list", "check", "clear", "audit", "top", "simulate",
+                    "cap", "caps", "rate", "rates"));
         } else if (args.length == 2) {
-            if (args[0].equalsIgnoreCase("add") || args[0].equalsIgnoreCase("check")) {
+            if (args[0].equalsIgnoreCase("add") || args[0].equalsIgnoreCase("check")
+                    || args[0].equalsIgnoreCase("simulate") || args[0].equalsIgnoreCase("cap")
+                    || args[0].equalsIgnoreCase("rate")) {
                 completions.addAll(Arrays.stream(Material.values())
                         .filter(Material::isItem)
                         .filter(m -> m != Material.AIR)
@@ -324,15 +621,29 @@ public class ItemLimitCommand implements CommandExecutor, TabCompleter {
                         .collect(Collectors.toList()));
             } else if (args[0].equalsIgnoreCase("remove")) {
                 completions.addAll(itemLimitManager.getLimitedItemNames());
+            } else if (args[0].equalsIgnoreCase("audit")) {
+                completions.addAll(Bukkit.getOnlinePlayers().stream()
+                        .map(Player::getName)
+                        .collect(Collectors.toList()));
+            } else if (args[0].equalsIgnoreCase("top")) {
+                completions.addAll(Arrays.asList("players", "materials", "reset"));
             } else if (args[0].equalsIgnoreCase("list")) {
                 int totalPages = (int) Math.ceil((double) itemLimitManager.getLimitedItemCount() / 10);
                 for (int i = 1; i <= Math.min(totalPages, 5); i++) {
                     completions.add(String.valueOf(i));
                 }
             }
-        } else if (args.length == 3 && args[0].equalsIgnoreCase("add")) {
+        } else if (args.length == 3 && (args[0].equalsIgnoreCase("add") || args[0].equalsIgnoreCase("simulate"))) {
             // Suggest common quantities
             completions.addAll(Arrays.asList("0", "1", "8", "16", "32", "64"));
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("cap")) {
+            completions.addAll(Arrays.asList("1", "3", "5", "10", "remove"));
+        } else if (args.length == 3 && args[0].equalsIgnoreCase("rate")) {
+            completions.addAll(Arrays.asList("1", "8", "16", "64", "remove"));
+        } else if (args.length == 4 && args[0].equalsIgnoreCase("rate")) {
+            completions.addAll(Arrays.asList("10", "30", "60", "1440"));
+        } else if (args.length == 4 && args[0].equalsIgnoreCase("simulate")) {
+            completions.add("offline");
         }
 
         return completions.stream()
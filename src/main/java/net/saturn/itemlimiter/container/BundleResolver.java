@@ -0,0 +1,54 @@
+package net.saturn.itemlimiter.container;
+
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.BundleContents;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Resolves the contents of the plain bundle and all 16 dyed bundles (1.21.2+).
+ * Reads the bundle contents data component directly instead of going through BundleMeta.
+ * The nested stacks are still copied out of the component on every read.
+ */
+public class BundleResolver implements ContainerItemResolver {
+
+    private static final ItemStack[] EMPTY = new ItemStack[0];
+    private static final EnumSet<Material> BUNDLES = EnumSet.noneOf(Material.class);
+
+    static {
+        // Computed once; dyed bundles are WHITE_BUNDLE ... BLACK_BUNDLE
+        for (Material material : Material.values()) {
+            if (!material.name().startsWith("LEGACY_") && material.name().endsWith("BUNDLE")) {
+                BUNDLES.add(material);
+            }
+        }
+    }
+
+    @Override
+    public Collection<Material> getMaterials() {
+        return BUNDLES;
+    }
+
+    @Override
+    public ItemStack[] getContents(ItemStack container) {
+        BundleContents contents = container.getData(DataComponentTypes.BUNDLE_CONTENTS);
+        if (contents == null) return EMPTY;
+        return contents.contents().toArray(EMPTY);
+    }
+
+    @Override
+    public void setContents(ItemStack container, ItemStack[] contents) {
+        List<ItemStack> items = new ArrayList<>(contents.length);
+        for (ItemStack item : contents) {
+            if (item != null && !item.isEmpty()) {
+                items.add(item);
+            }
+        }
+        container.setData(DataComponentTypes.BUNDLE_CONTENTS, BundleContents.bundleContents(items));
+    }
+}
@@ -0,0 +1,40 @@
+package net.saturn.itemlimiter.container;
+
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collection;
+
+/**
+ * Reads and writes the contents of an item that stores other items (shulker
+ * boxes, bundles, backpacks from other plugins, ...). Limits count items nested
+ * in such containers, and excess removal strips them out again.
+ *
+ * Register implementations with {@link ContainerResolverRegistry}; the registry
+ * dispatches by material ordinal, so only the listed materials ever reach a resolver.
+ */
+public interface ContainerItemResolver {
+
+    /**
+     * Materials this resolver may handle.
+     */
+    Collection<Material> getMaterials();
+
+    /**
+     * Finer check for items of one of {@link #getMaterials()}, e.g. a custom
+     * backpack identified by persistent data. Should be cheap.
+     */
+    default boolean isContainer(ItemStack item) {
+        return true;
+    }
+
+    /**
+     * Returns the stored items; entries may be null. Returns an empty array if empty.
+     */
+    ItemStack[] getContents(ItemStack container);
+
+    /**
+     * Writes the (modified) contents back into the container item.
+     */
+    void setContents(ItemStack container, ItemStack[] contents);
+}
@@ -0,0 +1,105 @@
+package net.saturn.itemlimiter.container;
+
+import net.saturn.itemlimiter.jfr.ContainerScanEvent;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the registered {@link ContainerItemResolver}s and a lookup table indexed
+ * by material ordinal, rebuilt whenever a resolver is (un)registered. Looking up
+ * the resolver for a stack is one array access for non-container materials.
+ * Resolvers registered later take precedence over earlier ones.
+ */
+public class ContainerResolverRegistry {
+
+    private static final ItemStack[] EMPTY = new ItemStack[0];
+
+    private final List<ContainerItemResolver> resolvers = new ArrayList<>();
+    private volatile ContainerItemResolver[][] byOrdinal = new ContainerItemResolver[Material.values().length][];
+
+    public ContainerResolverRegistry() {
+        register(new ShulkerBoxResolver());
+        register(new BundleResolver());
+    }
+
+    public synchronized void register(ContainerItemResolver resolver) {
+        resolvers.add(0, resolver);
+        rebuild();
+    }
+
+    public synchronized void unregister(ContainerItemResolver resolver) {
+        if (resolvers.remove(resolver)) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        List<List<ContainerItemResolver>> table = new ArrayList<>(Material.values().length);
+        for (int i = 0; i < Material.values().length; i++) {
+            table.add(null);
+        }
+        for (ContainerItemResolver resolver : resolvers) {
+            for (Material material : resolver.getMaterials()) {
+                List<ContainerItemResolver> list = table.get(material.ordinal());
+                if (list == null) {
+                    list = new ArrayList<>(1);
+                    table.set(material.ordinal(), list);
+                }
+                list.add(resolver);
+            }
+        }
+
+        ContainerItemResolver[][] rebuilt = new ContainerItemResolver[table.size()][];
+        for (int i = 0; i < rebuilt.length; i++) {
+            List<ContainerItemResolver> list = table.get(i);
+            if (list != null) {
+                rebuilt[i] = list.toArray(new ContainerItemResolver[0]);
+            }
+        }
+        byOrdinal = rebuilt;
+    }
+
+    /**
+     * Whether any resolver is registered for this material.
+     */
+    public boolean mayContainItems(Material material) {
+        return byOrdinal[material.ordinal()] != null;
+    }
+
+    /**
+     * Returns the resolver for this stack, or null if it isn't a container.
+     */
+    public ContainerItemResolver resolve(ItemStack item) {
+        if (item == null) return null;
+        ContainerItemResolver[] candidates = byOrdinal[item.getType().ordinal()];
+        if (candidates == null) return null;
+        for (ContainerItemResolver resolver : candidates) {
+            if (resolver.isContainer(item)) {
+                return resolver;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the items stored in this stack, or an empty array if it isn't a container.
+     */
+    public ItemStack[] getContents(ItemStack item) {
+        ContainerItemResolver resolver = resolve(item);
+        if (resolver == null) return EMPTY;
+
+        ContainerScanEvent event = new ContainerScanEvent();
+        event.begin();
+        ItemStack[] contents = resolver.getContents(item);
+        if (event.shouldCommit()) {
+            event.container = item.getType().name();
+            event.resolver = resolver.getClass();
+            event.slots = contents.length;
+            event.commit();
+        }
+        return contents;
+    }
+}
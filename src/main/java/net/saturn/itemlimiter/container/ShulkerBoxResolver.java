@@ -0,0 +1,44 @@
+package net.saturn.itemlimiter.container;
+
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.ItemContainerContents;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolves the contents of all 17 shulker box items. Reads the item's container
+ * data component directly instead of building ItemMeta, a fake block state and
+ * its inventory for every stack. The nested stacks themselves are still copied
+ * out of the component on every read; only empty boxes return without copying.
+ */
+public class ShulkerBoxResolver implements ContainerItemResolver {
+
+    private static final ItemStack[] EMPTY = new ItemStack[0];
+
+    @Override
+    public Collection<Material> getMaterials() {
+        return Tag.SHULKER_BOXES.getValues();
+    }
+
+    @Override
+    public ItemStack[] getContents(ItemStack container) {
+        ItemContainerContents contents = container.getData(DataComponentTypes.CONTAINER);
+        if (contents == null) return EMPTY;
+        return contents.contents().toArray(EMPTY);
+    }
+
+    @Override
+    public void setContents(ItemStack container, ItemStack[] contents) {
+        // Slot positions matter for shulker boxes; keep empty slots in place
+        List<ItemStack> items = new ArrayList<>(contents.length);
+        for (ItemStack item : contents) {
+            items.add(item != null ? item : ItemStack.empty());
+        }
+        container.setData(DataComponentTypes.CONTAINER, ItemContainerContents.containerContents(items));
+    }
+}
@@ -0,0 +1,28 @@
+package net.saturn.itemlimiter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recount of one player's holdings of globally capped materials.
+ */
+@Name("net.saturn.itemlimiter.Census")
+@Label("Player Census")
+@Category({"ItemLimiter"})
+@Description("Recount of a player's capped items for the server-wide caps")
+public class CensusEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Capped Items")
+    @Description("Items of capped materials the player holds")
+    public int items;
+
+    @Label("Full Census")
+    @Description("Part of the periodic census rather than a recount after an inventory change")
+    public boolean fullCensus;
+}
@@ -0,0 +1,28 @@
+package net.saturn.itemlimiter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Reading the contents of a container item (shulker box, bundle, backpack).
+ */
+@Name("net.saturn.itemlimiter.ContainerScan")
+@Label("Container Scan")
+@Category({"ItemLimiter"})
+@Description("Contents of a container item read through its resolver")
+@StackTrace(false)
+public class ContainerScanEvent extends Event {
+
+    @Label("Container")
+    public String container;
+
+    @Label("Resolver")
+    public Class<?> resolver;
+
+    @Label("Slots")
+    public int slots;
+}
@@ -0,0 +1,34 @@
+package net.saturn.itemlimiter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Excess items removed from a player and dropped at their feet.
+ */
+@Name("net.saturn.itemlimiter.ExcessRemoval")
+@Label("Drop Excess")
+@Category({"ItemLimiter"})
+@Description("Excess items of one or more limited materials removed from a player")
+public class ExcessRemovalEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Materials")
+    public String materials;
+
+    @Label("Items Dropped")
+    public int itemsDropped;
+
+    @Label("Removals")
+    @Description("Stacks taken from, including stacks nested in containers")
+    public int removals;
+
+    @Label("Ender Chest")
+    @Description("Whether the ender chest had to be rewritten")
+    public boolean enderChest;
+}
@@ -0,0 +1,35 @@
+package net.saturn.itemlimiter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A pickup denied by the limiter.
+ */
+@Name("net.saturn.itemlimiter.PickupBlocked")
+@Label("Pickup Blocked")
+@Category({"ItemLimiter"})
+@Description("An item pickup cancelled because of a limit")
+@StackTrace(false)
+public class PickupBlockedEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Material")
+    public String material;
+
+    @Label("Amount")
+    public int amount;
+
+    @Label("Limit")
+    public int limit;
+
+    @Label("Reason")
+    @Description("banned, cached, at-limit or throttled")
+    public String reason;
+}
@@ -0,0 +1,20 @@
+package net.saturn.itemlimiter.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One run of the periodic excess sweep over all online players.
+ */
+@Name("net.saturn.itemlimiter.Sweep")
+@Label("Excess Sweep")
+@Category({"ItemLimiter"})
+@Description("Periodic check of all online players for items over their limits")
+public class SweepEvent extends Event {
+
+    @Label("Players Scanned")
+    public int playersScanned;
+}
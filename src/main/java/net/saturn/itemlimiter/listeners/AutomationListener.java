@@ -0,0 +1,72 @@
+package net.saturn.itemlimiter.listeners;
+
+import net.saturn.itemlimiter.container.ContainerResolverRegistry;
+import net.saturn.itemlimiter.managers.ItemLimitManager;
+import org.bukkit.Material;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.CrafterCraftEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Stops restricted items from flowing through hoppers, droppers, hopper
+ * minecarts and crafters. Every handler only does an O(1) bitset lookup
+ * by material ordinal before deciding, since hopper events fire constantly;
+ * contents are only resolved for materials that can hold items.
+ */
+public class AutomationListener implements Listener {
+
+    private final ItemLimitManager itemLimitManager;
+
+    public AutomationListener(ItemLimitManager itemLimitManager) {
+        this.itemLimitManager = itemLimitManager;
+    }
+
+    /* ============================================================
+       HOPPER / DROPPER / HOPPER MINECART TRANSFER
+       ============================================================ */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onInventoryMove(InventoryMoveItemEvent event) {
+        if (isBlocked(event.getItem())) {
+            event.setCancelled(true);
+        }
+    }
+
+    /* ============================================================
+       HOPPER PICKUP (GROUND -> HOPPER)
+       ============================================================ */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onHopperPickup(InventoryPickupItemEvent event) {
+        if (isBlocked(event.getItem().getItemStack())) {
+            event.setCancelled(true);
+        }
+    }
+
+    /* ============================================================
+       CRAFTER BLOCK (1.21)
+       ============================================================ */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onCrafterCraft(CrafterCraftEvent event) {
+        if (isBlocked(event.getResult())) {
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * Whether the stack, or anything nested in it (shulker boxes, bundles), is blocked for automation.
+     */
+    private boolean isBlocked(ItemStack item) {
+        if (item == null || item.getType() == Material.AIR) return false;
+        if (itemLimitManager.isBlockedForAutomation(item.getType())) return true;
+
+        ContainerResolverRegistry resolvers = itemLimitManager.getContainerResolvers();
+        if (!resolvers.mayContainItems(item.getType())) return false;
+        for (ItemStack contained : resolvers.getContents(item)) {
+            if (isBlocked(contained)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,214 @@
+package net.saturn.itemlimiter.listeners;
+
+import com.destroystokyo.paper.event.server.ServerTickStartEvent;
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.managers.AuditLogManager;
+import net.saturn.itemlimiter.managers.ItemLimitManager;
+import org.bukkit.Material;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.block.DoubleChest;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.loot.Lootable;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Removes banned items from chests, barrels, placed shulker boxes and other block
+ * containers. Limits are per player, so only bans apply to block storage.
+ *
+ * Each container gets a PDC stamp with the limit table version it was verified
+ * against; stamped containers are skipped until the table changes. A container
+ * is verified when opened (immediately, before its contents can be taken) and
+ * when its chunk loads (queued per chunk, and drained under a time budget per
+ * tick). The queue holds coordinates only, drops a chunk's entries when it
+ * unloads and is bounded; containers that don't fit are checked when opened.
+ */
+public class ContainerContentsListener implements Listener {
+
+    private final ItemLimiter plugin;
+    private final ItemLimitManager itemLimitManager;
+    private final NamespacedKey stampKey;
+    private final long budgetNanos;
+    private final int queueMax;
+    private final Map<ChunkRef, List<Pos>> pending = new LinkedHashMap<>();
+    private int queued;
+
+    private record ChunkRef(UUID world, int x, int z) {
+        static ChunkRef of(Chunk chunk) {
+            return new ChunkRef(chunk.getWorld().getUID(), chunk.getX(), chunk.getZ());
+        }
+    }
+
+    private record Pos(int x, int y, int z) {
+    }
+
+    public ContainerContentsListener(ItemLimiter plugin, ItemLimitManager itemLimitManager) {
+        this.plugin = plugin;
+        this.itemLimitManager = itemLimitManager;
+        this.stampKey = new NamespacedKey(plugin, "verified-version");
+        this.budgetNanos = Math.max(1L, plugin.getConfig().getLong("enforcement.container-budget-micros", 1000L)) * 1000L;
+        this.queueMax = Math.max(0, plugin.getConfig().getInt("enforcement.container-queue-max", 8192));
+    }
+
+    /* ============================================================
+       CONTAINER OPEN
+       ============================================================ */
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onContainerOpen(InventoryOpenEvent event) {
+        if (!itemLimitManager.hasBannedItems()) return;
+
+        InventoryHolder holder = event.getInventory().getHolder(false);
+        Container[] sides;
+        if (holder instanceof Container container) {
+            sides = new Container[]{container};
+        } else if (holder instanceof DoubleChest doubleChest) {
+            sides = new Container[]{live(doubleChest.getLeftSide()), live(doubleChest.getRightSide())};
+        } else {
+            return;
+        }
+
+        boolean verified = true;
+        for (Container side : sides) {
+            verified &= side != null && isVerified(side);
+        }
+        if (verified) return;
+
+        // The opened inventory covers both halves of a double chest
+        Map<Material, Integer> removed = itemLimitManager.purgeBanned(event.getInventory());
+        for (Container side : sides) {
+            if (side != null) {
+                stamp(side); // A queued entry for it is skipped as verified
+            }
+        }
+
+        if (event.getPlayer() instanceof Player player) {
+            for (Map.Entry<Material, Integer> entry : removed.entrySet()) {
+                plugin.getMetricsManager().recordAction(AuditLogManager.Action.CONTAINER_PURGED, entry.getKey(), entry.getValue());
+                plugin.getEnforcementAnalytics().record(player, entry.getKey());
+                plugin.getAuditLogManager().log(player, AuditLogManager.Action.CONTAINER_PURGED,
+                        entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /* ============================================================
+       CHUNK LOAD
+       ============================================================ */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        // Fresh chunks only hold loot tables that haven't been rolled yet
+        if (event.isNewChunk() || !itemLimitManager.hasBannedItems()) return;
+
+        List<Pos> positions = null;
+        for (BlockState state : event.getChunk().getTileEntities(false)) {
+            if (queued >= queueMax) break;
+            if (state instanceof Container container && !hasPendingLoot(container) && !isVerified(container)) {
+                if (positions == null) {
+                    positions = pending.computeIfAbsent(ChunkRef.of(event.getChunk()), ref -> new ArrayList<>());
+                }
+                positions.add(new Pos(state.getX(), state.getY(), state.getZ()));
+                queued++;
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (pending.isEmpty()) return;
+
+        List<Pos> dropped = pending.remove(ChunkRef.of(event.getChunk()));
+        if (dropped != null) {
+            queued -= dropped.size();
+        }
+    }
+
+    @EventHandler
+    public void onTickStart(ServerTickStartEvent event) {
+        if (pending.isEmpty()) return;
+
+        long deadline = System.nanoTime() + budgetNanos;
+        boolean progressed = false;
+        Iterator<Map.Entry<ChunkRef, List<Pos>>> chunks = pending.entrySet().iterator();
+        while (chunks.hasNext()) {
+            Map.Entry<ChunkRef, List<Pos>> entry = chunks.next();
+            ChunkRef chunk = entry.getKey();
+            List<Pos> positions = entry.getValue();
+            World world = plugin.getServer().getWorld(chunk.world());
+            if (world != null && world.isChunkLoaded(chunk.x(), chunk.z())) {
+                while (!positions.isEmpty()) {
+                    // Always make progress, even if a single container takes longer than the budget
+                    if (progressed && System.nanoTime() >= deadline) return;
+                    verify(world, positions.remove(positions.size() - 1));
+                    queued--;
+                    progressed = true;
+                }
+            } else {
+                // Unloaded without an unload event reaching us (e.g. the world was unloaded)
+                queued -= positions.size();
+            }
+            chunks.remove();
+        }
+    }
+
+    private void verify(World world, Pos pos) {
+        if (!(world.getBlockAt(pos.x(), pos.y(), pos.z()).getState(false) instanceof Container container)) return;
+        if (hasPendingLoot(container) || isVerified(container)) return;
+
+        Map<Material, Integer> removed = itemLimitManager.purgeBanned(container.getInventory());
+        stamp(container);
+        for (Map.Entry<Material, Integer> entry : removed.entrySet()) {
+            plugin.getMetricsManager().recordAction(AuditLogManager.Action.CONTAINER_PURGED,
+                    entry.getKey(), entry.getValue());
+        }
+    }
+
+    /* ============================================================
+       HELPERS
+       ============================================================ */
+    private boolean isVerified(Container container) {
+        Long stamp = container.getPersistentDataContainer().get(stampKey, PersistentDataType.LONG);
+        return stamp != null && stamp == itemLimitManager.getVersion();
+    }
+
+    /**
+     * Reading an unrolled loot container would roll its loot table early (without
+     * the opening player's luck); it's verified when someone opens it instead.
+     */
+    private boolean hasPendingLoot(Container container) {
+        return container instanceof Lootable lootable && lootable.hasLootTable();
+    }
+
+    private void stamp(Container container) {
+        // Non-snapshot state: the PDC write goes straight to the block entity;
+        // update() marks it changed so the stamp is saved with the chunk
+        container.getPersistentDataContainer().set(stampKey, PersistentDataType.LONG, itemLimitManager.getVersion());
+        container.update(false, false);
+    }
+
+    /**
+     * Returns the live (non-snapshot) container for one half of a double chest.
+     */
+    private Container live(InventoryHolder side) {
+        if (side instanceof BlockState state && state.getBlock().getState(false) instanceof Container container) {
+            return container;
+        }
+        return null;
+    }
+}
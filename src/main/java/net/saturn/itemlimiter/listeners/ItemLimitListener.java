@@ -1,17 +1,26 @@
 package net.saturn.itemlimiter.listeners;
 
 import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.jfr.PickupBlockedEvent;
+import net.saturn.itemlimiter.jfr.SweepEvent;
+import net.saturn.itemlimiter.managers.AuditLogManager;
+import net.saturn.itemlimiter.managers.EnforcementQueue;
+import net.saturn.itemlimiter.managers.EnforcementRateLimiter;
 import net.saturn.itemlimiter.managers.ItemLimitManager;
+import net.saturn.itemlimiter.managers.PickupSuppressionCache;
 import org.bukkit.Material;
 import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
-import org.bukkit.event.block.CrafterCraftEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.entity.ProjectileLaunchEvent;
 import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.event.player.PlayerSwapHandItemsEvent;
@@ -22,19 +31,27 @@ import org.bukkit.scheduler.BukkitRunnable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class ItemLimitListener implements Listener {
 
+    private static final long THROTTLED_CHECK_DELAY = 20L; // Ticks
+
     private final ItemLimiter plugin;
     private final ItemLimitManager itemLimitManager;
     private BukkitRunnable periodicCheckTask;
     private final Map<UUID, Long> pickupCooldowns = new HashMap<>();
     private final Map<UUID, Long> partialCooldowns = new HashMap<>();
     private final Map<UUID, Long> blockedCooldowns = new HashMap<>();
+    private final EnforcementRateLimiter rateLimiter;
+    private UUID fillingPickup; // Item entity whose pickup, if it goes through, fills the limit exactly
 
     public ItemLimitListener(ItemLimiter plugin, ItemLimitManager itemLimitManager) {
         this.plugin = plugin;
         this.itemLimitManager = itemLimitManager;
+        this.rateLimiter = new EnforcementRateLimiter(
+                plugin.getConfig().getInt("enforcement.rate-limit.burst", 40),
+                plugin.getConfig().getDouble("enforcement.rate-limit.per-second", 20.0));
         startPeriodicCheck();
     }
 
@@ -52,12 +69,24 @@ public class ItemLimitListener implements Listener {
                     return;
                 }
 
+                SweepEvent sweepEvent = new SweepEvent();
+                sweepEvent.begin();
+                long start = System.nanoTime();
+                int scanned = 0;
+
                 // Check all online players for excess items
                 for (Player player : plugin.getServer().getOnlinePlayers()) {
                     if (player != null && player.isOnline()) {
                         checkAndDropAllExcess(player);
+                        scanned++;
                     }
                 }
+
+                plugin.getMetricsManager().recordSweep(System.nanoTime() - start, scanned);
+                if (sweepEvent.shouldCommit()) {
+                    sweepEvent.playersScanned = scanned;
+                    sweepEvent.commit();
+                }
             }
         };
         periodicCheckTask.runTaskTimer(plugin, 100L, 100L); // Start after 5 seconds, then every 5 seconds
@@ -73,21 +102,9 @@ public class ItemLimitListener implements Listener {
     }
 
     /* ============================================================
-       CRAFTER BLOCK (1.21)
+       CRAFTING
        ============================================================ */
     @EventHandler
-    public void onCrafterCraft(CrafterCraftEvent event) {
-        if (event.getRecipe() == null) return;
-        ItemStack result = event.getRecipe().getResult();
-
-        // For automated crafters, we enforce limits based on the block itself.
-        // If the item is banned (limit 0) or limited, we block the craft to 
-        // prevent automated generation of restricted items.
-        if (itemLimitManager.isItemLimited(result)) {
-            event.setCancelled(true);
-        }
-    }
-    @EventHandler
     public void onPrepareCraft(PrepareItemCraftEvent event) {
         if (event.getRecipe() == null) return;
         ItemStack result = event.getRecipe().getResult();
@@ -113,6 +130,17 @@ public class ItemLimitListener implements Listener {
     public void onPickup(EntityPickupItemEvent event) {
         if (!(event.getEntity() instanceof Player player)) return;
 
+        PickupSuppressionCache pickupCache = itemLimitManager.getPickupSuppressionCache();
+        UUID itemId = event.getItem().getUniqueId();
+
+        // Fast path: this item entity was already rejected for this player
+        if (pickupCache.isIgnored(player.getUniqueId(), itemId)) {
+            event.setCancelled(true);
+            plugin.getMetricsManager().recordPickupCacheLookup(true);
+            recordPickupBlocked(player, event.getItem().getItemStack(), "cached");
+            return;
+        }
+
         ItemStack stack = event.getItem().getItemStack();
         Material material = stack.getType();
 
@@ -120,20 +148,37 @@ public class ItemLimitListener implements Listener {
 
         int limit = itemLimitManager.getLimit(material);
 
-        // If banned, cancel pickup
-        if (limit == 0) {
+        // If banned, or known to be at the limit, cancel pickup without counting
+        if (limit == 0 || pickupCache.isAtLimit(player.getUniqueId(), material)) {
             event.setCancelled(true);
+            if (limit != 0) {
+                plugin.getMetricsManager().recordPickupCacheLookup(true);
+            }
+            recordPickupBlocked(player, stack, limit == 0 ? "banned" : "cached");
+            pickupCache.ignore(player.getUniqueId(), itemId);
+            audit(player, AuditLogManager.Action.PICKUP_BLOCKED, material, stack.getAmount());
             sendPickupBlockedMessage(player, material, limit);
             return;
         }
 
-        int current = itemLimitManager.countItemInInventory(player, material);
+        plugin.getMetricsManager().recordPickupCacheLookup(false);
+        if (!admit(player)) {
+            event.setCancelled(true);
+            recordPickupBlocked(player, stack, "throttled");
+            return;
+        }
+
+        int current = itemLimitManager.countItemInInventory(player, material, limit);
         int amountPickingUp = stack.getAmount();
         int totalAfterPickup = current + amountPickingUp;
 
         // If already at or over limit, cancel the pickup
         if (current >= limit) {
             event.setCancelled(true);
+            recordPickupBlocked(player, stack, "at-limit");
+            pickupCache.markAtLimit(player.getUniqueId(), material);
+            pickupCache.ignore(player.getUniqueId(), itemId);
+            audit(player, AuditLogManager.Action.PICKUP_BLOCKED, material, stack.getAmount());
             sendPickupBlockedMessage(player, material, limit);
             return;
         }
@@ -141,11 +186,6 @@ public class ItemLimitListener implements Listener {
         // If picking up would exceed limit, handle partial pickup
         if (totalAfterPickup > limit) {
             int canAdd = limit - current;
-            if (canAdd <= 0) {
-                event.setCancelled(true);
-                sendPickupBlockedMessage(player, material, limit);
-                return;
-            }
 
             event.setCancelled(true);
 
@@ -157,11 +197,14 @@ public class ItemLimitListener implements Listener {
             int actuallyAdded = canAdd - leftoverAmount;
 
             if (actuallyAdded <= 0) {
+                audit(player, AuditLogManager.Action.PICKUP_BLOCKED, material, stack.getAmount());
                 sendPickupBlockedMessage(player, material, limit);
                 return;
             }
 
             int remaining = stack.getAmount() - actuallyAdded;
+            plugin.getAcquisitionLimitManager().record(player, material, actuallyAdded);
+            audit(player, AuditLogManager.Action.PICKUP_PARTIAL, material, remaining);
             if (remaining <= 0) {
                 event.getItem().remove();
             } else {
@@ -170,21 +213,71 @@ public class ItemLimitListener implements Listener {
                 event.getItem().setItemStack(newStack);
             }
 
-            player.updateInventory();
+            if (actuallyAdded == canAdd) {
+                // Now exactly at the limit
+                pickupCache.markAtLimit(player.getUniqueId(), material);
+                pickupCache.ignore(player.getUniqueId(), itemId);
+            }
+
+            plugin.getInventoryUpdateScheduler().markDirty(player);
             sendPartialMessage(player, material, actuallyAdded, limit);
             return;
         }
-        // If totalAfterPickup <= limit, allow the pickup (don't cancel event)
-        if (itemLimitManager.isItemLimited(stack.getType())) {
-            if (itemLimitManager.countItemInInventory(player, stack.getType()) + stack.getAmount() > limit) {
-                int excess = itemLimitManager.countItemInInventory(player, stack.getType()) + stack.getAmount() - limit;
-                ItemStack toDrop = stack.clone();
-                toDrop.setAmount(excess);
-                player.getWorld().dropItem(player.getLocation(), toDrop);
-            }
+
+        // Pickup fits (don't cancel event); remember if it fills the limit exactly, once it went through
+        if (totalAfterPickup == limit) {
+            fillingPickup = itemId;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPickupCompleted(EntityPickupItemEvent event) {
+        if (fillingPickup == null || !fillingPickup.equals(event.getItem().getUniqueId())) return;
+        fillingPickup = null;
+
+        if (!event.isCancelled()) {
+            itemLimitManager.getPickupSuppressionCache().markAtLimit(
+                    event.getEntity().getUniqueId(), event.getItem().getItemStack().getType());
         }
     }
 
+    /* ============================================================
+       PICKUP CACHE INVALIDATION
+       ============================================================ */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDropForPickupCache(PlayerDropItemEvent event) {
+        itemLimitManager.getPickupSuppressionCache().clear(
+                event.getPlayer().getUniqueId(), event.getItemDrop().getItemStack().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        itemLimitManager.getPickupSuppressionCache().clear(event.getPlayer().getUniqueId(), event.getItem().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        itemLimitManager.getPickupSuppressionCache().clear(
+                event.getPlayer().getUniqueId(), event.getItemInHand().getType());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryChangeForPickupCache(InventoryClickEvent event) {
+        itemLimitManager.getPickupSuppressionCache().clearAll(event.getWhoClicked().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onProjectileLaunch(ProjectileLaunchEvent event) {
+        if (event.getEntity().getShooter() instanceof Player player) {
+            itemLimitManager.getPickupSuppressionCache().clearAll(player.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(PlayerDeathEvent event) {
+        itemLimitManager.getPickupSuppressionCache().clearAll(event.getEntity().getUniqueId());
+    }
+
     /* ============================================================
        HAND SWAP (F KEY)
        ============================================================ */
@@ -290,7 +383,8 @@ public class ItemLimitListener implements Listener {
             // If banned, always cancel
             if (limit == 0) {
                 event.setCancelled(true);
-                player.updateInventory();
+                plugin.getInventoryUpdateScheduler().markDirty(player);
+                audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, moving.getAmount());
                 sendBlockedMessage(player, material, limit);
                 return;
             }
@@ -304,13 +398,20 @@ public class ItemLimitListener implements Listener {
                 return;
             }
 
+            if (!admit(player)) {
+                event.setCancelled(true);
+                plugin.getInventoryUpdateScheduler().markDirty(player);
+                return;
+            }
+
             // For adding to offhand, check if it would exceed limit
-            int current = itemLimitManager.countItemInInventory(player, material);
+            int current = itemLimitManager.countItemInInventory(player, material, limit);
             int amountToAdd = moving.getAmount();
 
             if (current + amountToAdd > limit) {
                 event.setCancelled(true);
-                player.updateInventory();
+                plugin.getInventoryUpdateScheduler().markDirty(player);
+                audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, amountToAdd);
                 sendBlockedMessage(player, material, limit);
                 return;
             }
@@ -321,21 +422,35 @@ public class ItemLimitListener implements Listener {
 
         if (!isAddingToPlayer(action, clicked, playerInv)) return;
 
+        // Moving from the ender chest into the inventory doesn't change the counted total
+        if (fromContainer && clicked.equals(player.getEnderChest())) return;
+
         int limit = itemLimitManager.getLimit(material);
-        int current = itemLimitManager.countItemInInventory(player, material);
 
         // If banned, always cancel
         if (limit == 0) {
             event.setCancelled(true);
-            player.updateInventory();
+            plugin.getInventoryUpdateScheduler().markDirty(player);
+            audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, moving.getAmount());
             sendBlockedMessage(player, material, limit);
             return;
         }
 
+        if (!admit(player)) {
+            event.setCancelled(true);
+            plugin.getInventoryUpdateScheduler().markDirty(player);
+            return;
+        }
+
+        int current = itemLimitManager.countItemInInventory(player, material, limit);
+
         // If at or over limit, cancel the action
         if (current >= limit) {
             event.setCancelled(true);
-            player.updateInventory();
+            plugin.getInventoryUpdateScheduler().markDirty(player);
+            if (fromContainer) {
+                audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, moving.getAmount());
+            }
 
             // If from cursor (not container), drop it
             if (!fromContainer) {
@@ -350,10 +465,11 @@ public class ItemLimitListener implements Listener {
         int amountToAdd = moving.getAmount();
         if (current + amountToAdd > limit) {
             event.setCancelled(true);
-            player.updateInventory();
+            plugin.getInventoryUpdateScheduler().markDirty(player);
 
             // Calculate how much can be added
             int canAdd = limit - current;
+            audit(player, AuditLogManager.Action.TRANSFER_PARTIAL, material, amountToAdd - canAdd);
 
             if (fromContainer) {
                 // From container - add what we can, leave rest in container
@@ -385,12 +501,12 @@ public class ItemLimitListener implements Listener {
         // If banned, always cancel
         if (limit == 0) {
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, draggedItem.getAmount());
             sendBlockedMessage(player, material, limit);
             return;
         }
 
         Inventory playerInv = player.getInventory();
-        int current = itemLimitManager.countItemInInventory(player, material);
 
         // Check if any dragged slot is in player inventory (including offhand slot 40)
         boolean draggingToPlayerInv = false;
@@ -403,6 +519,13 @@ public class ItemLimitListener implements Listener {
 
         if (!draggingToPlayerInv) return;
 
+        if (!admit(player)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        int current = itemLimitManager.countItemInInventory(player, material, limit);
+
         // Calculate total amount being dragged
         int totalDragAmount = 0;
         for (ItemStack stack : event.getNewItems().values()) {
@@ -414,6 +537,7 @@ public class ItemLimitListener implements Listener {
         // If at or over limit, cancel
         if (current >= limit) {
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, totalDragAmount);
             sendBlockedMessage(player, material, limit);
             return;
         }
@@ -421,6 +545,7 @@ public class ItemLimitListener implements Listener {
         // If dragging would exceed limit, cancel
         if (current + totalDragAmount > limit) {
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, totalDragAmount);
             sendBlockedMessage(player, material, limit);
         }
     }
@@ -445,20 +570,30 @@ public class ItemLimitListener implements Listener {
         // Only handle shift-clicking FROM a container TO player inventory
         if (clickedInv == playerInv) return;
 
+        // Ender chest contents already count toward the limit
+        if (clickedInv != null && clickedInv.equals(player.getEnderChest())) return;
+
         int limit = itemLimitManager.getLimit(material);
 
         // If banned, cancel
         if (limit == 0) {
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, clicked.getAmount());
             sendBlockedMessage(player, material, limit);
             return;
         }
 
-        int current = itemLimitManager.countItemInInventory(player, material);
+        if (!admit(player)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        int current = itemLimitManager.countItemInInventory(player, material, limit);
 
         // If at limit, cancel
         if (current >= limit) {
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRANSFER_BLOCKED, material, clicked.getAmount());
             sendBlockedMessage(player, material, limit);
             return;
         }
@@ -470,25 +605,10 @@ public class ItemLimitListener implements Listener {
             event.setCancelled(true);
 
             int canTransfer = limit - current;
+            audit(player, AuditLogManager.Action.TRANSFER_PARTIAL, material, amountToTransfer - canTransfer);
 
-            // Schedule the partial transfer for next tick
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (!player.isOnline()) return;
-
-                    // Remove from source
-                    clicked.setAmount(clicked.getAmount() - canTransfer);
-
-                    // Add to player inventory
-                    ItemStack toAdd = clicked.clone();
-                    toAdd.setAmount(canTransfer);
-                    playerInv.addItem(toAdd);
-
-                    player.updateInventory();
-                    sendPartialMessage(player, material, canTransfer, limit);
-                }
-            }.runTask(plugin);
+            // Complete the partial transfer next tick
+            handlePartialTransferFromContainer(player, event, material, canTransfer);
         }
     }
 
@@ -503,31 +623,19 @@ public class ItemLimitListener implements Listener {
         if (cursor == null || cursor.getType() == Material.AIR) {
             // No item on cursor, but check for excess items in inventory
             // This catches items added via /give or other means
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (!player.isOnline()) return;
-                    checkAndDropAllExcess(player);
-                }
-            }.runTask(plugin);
+            queueExcessCheck(player);
             return;
         }
 
         Material material = cursor.getType();
         if (!itemLimitManager.isItemLimited(material)) {
             // Check for other excess items even if cursor item isn't limited
-            new BukkitRunnable() {
-                @Override
-                public void run() {
-                    if (!player.isOnline()) return;
-                    checkAndDropAllExcess(player);
-                }
-            }.runTask(plugin);
+            queueExcessCheck(player);
             return;
         }
 
         int limit = itemLimitManager.getLimit(material);
-        int current = itemLimitManager.countItemInInventory(player, material);
+        int current = itemLimitManager.countItemInInventory(player, material, limit);
 
         // If banned or at/over limit, drop the item
         if (limit == 0 || current >= limit) {
@@ -536,13 +644,34 @@ public class ItemLimitListener implements Listener {
         }
 
         // Also check for excess items in inventory after handling cursor
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!player.isOnline()) return;
-                checkAndDropAllExcess(player);
-            }
-        }.runTask(plugin);
+        queueExcessCheck(player);
+    }
+
+    /* ============================================================
+       ENDER CHEST CACHE
+       ============================================================ */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEnderChestClick(InventoryClickEvent event) {
+        if (event.getView().getTopInventory().getType() != InventoryType.ENDER_CHEST) return;
+        if (event.getWhoClicked() instanceof Player player) {
+            itemLimitManager.getEnderChestCache().invalidate(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEnderChestDrag(InventoryDragEvent event) {
+        if (event.getView().getTopInventory().getType() != InventoryType.ENDER_CHEST) return;
+        if (event.getWhoClicked() instanceof Player player) {
+            itemLimitManager.getEnderChestCache().invalidate(player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onEnderChestClose(InventoryCloseEvent event) {
+        if (event.getInventory().getType() != InventoryType.ENDER_CHEST) return;
+        if (event.getPlayer() instanceof Player player) {
+            itemLimitManager.getEnderChestCache().recompute(player);
+        }
     }
 
     /* ============================================================
@@ -558,8 +687,9 @@ public class ItemLimitListener implements Listener {
         Material material = cursor.getType();
         if (!itemLimitManager.isItemLimited(material)) return;
 
+        // Dropping only ever removes items, so it is never throttled
         int limit = itemLimitManager.getLimit(material);
-        int current = itemLimitManager.countItemInInventory(player, material);
+        int current = itemLimitManager.countItemInInventory(player, material, limit);
 
         // If banned or at/over limit, allow drop but clear cursor
         if (limit == 0 || current >= limit) {
@@ -576,23 +706,65 @@ public class ItemLimitListener implements Listener {
     public void onJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!player.isOnline()) return;
-                checkAndDropAllExcess(player);
-            }
-        }.runTaskLater(plugin, 20L);
+        // The stored fingerprint loads off the main thread; hashing nested containers to
+        // compare it runs inside the rate-limited join check rather than on the join itself
+        UUID uuid = player.getUniqueId();
+        CompletableFuture<String> fingerprint = itemLimitManager.getInventoryFingerprints().load(uuid);
+        plugin.getEnforcementQueue().submit(player, EnforcementQueue.Kind.JOIN_CHECK, 20L, () -> {
+            // A relog within the delay folds into this check, so act on whoever is online now
+            Player online = plugin.getServer().getPlayer(uuid);
+            if (online == null) return;
+            // Unchanged inventory under an unchanged limit table was already clean when they left;
+            // a fingerprint still loading by now is treated as missing and the inventory is scanned
+            if (itemLimitManager.getInventoryFingerprints().isVerified(online, fingerprint.getNow(null))) return;
+            checkAndDropAllExcess(online);
+        });
     }
 
     @EventHandler
     public void onQuit(PlayerQuitEvent event) {
+        itemLimitManager.getInventoryFingerprints().record(event.getPlayer());
         pickupCooldowns.remove(event.getPlayer().getUniqueId());
+        rateLimiter.remove(event.getPlayer().getUniqueId());
+        itemLimitManager.getEnderChestCache().remove(event.getPlayer().getUniqueId());
+        itemLimitManager.getPickupSuppressionCache().remove(event.getPlayer().getUniqueId());
     }
 
     /* ============================================================
        HELPERS
        ============================================================ */
+    /**
+     * Takes an enforcement token before counting the player's inventory. Without a
+     * token the caller denies the action unchecked, and one full excess check is
+     * queued for once the burst is over (repeated requests collapse into it).
+     */
+    private boolean admit(Player player) {
+        if (rateLimiter.tryAcquire(player.getUniqueId())) return true;
+
+        plugin.getMetricsManager().recordThrottled();
+        UUID uuid = player.getUniqueId();
+        plugin.getEnforcementQueue().submit(player, EnforcementQueue.Kind.EXCESS_CHECK, THROTTLED_CHECK_DELAY, () -> {
+            Player online = plugin.getServer().getPlayer(uuid);
+            if (online != null) checkAndDropAllExcess(online);
+        });
+        return false;
+    }
+
+    private void recordPickupBlocked(Player player, ItemStack stack, String reason) {
+        plugin.getMetricsManager().recordPickupBlocked();
+
+        PickupBlockedEvent event = new PickupBlockedEvent();
+        if (event.shouldCommit()) {
+            Integer limit = itemLimitManager.getLimit(stack.getType());
+            event.player = player.getName();
+            event.material = stack.getType().name();
+            event.amount = stack.getAmount();
+            event.limit = limit != null ? limit : -1;
+            event.reason = reason;
+            event.commit();
+        }
+    }
+
     private boolean isAddingToPlayer(InventoryAction action, Inventory clicked, Inventory playerInv) {
         if (action == InventoryAction.MOVE_TO_OTHER_INVENTORY) {
             return clicked != playerInv;
@@ -601,52 +773,61 @@ public class ItemLimitListener implements Listener {
     }
 
     private void handlePartialTransferFromContainer(Player player, InventoryClickEvent event, Material material, int canAdd) {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!player.isOnline()) return;
+        Inventory source = event.getClickedInventory();
+        int slot = event.getSlot();
+        if (source == null) return;
 
-                ItemStack source = event.getCurrentItem();
-                if (source == null) return;
+        plugin.getEnforcementQueue().submit(player, EnforcementQueue.Kind.PARTIAL_TRANSFER, material, () -> {
+            if (!player.isOnline()) return;
 
-                // Take what we can from the source
-                int remaining = source.getAmount() - canAdd;
-                source.setAmount(remaining);
+            // The slot and the player's inventory may have changed while the task was queued
+            ItemStack stack = source.getItem(slot);
+            if (stack == null || stack.getType() != material || stack.getAmount() < canAdd) return;
 
-                // Add to player inventory
-                ItemStack toAdd = source.clone();
-                toAdd.setAmount(canAdd);
-                player.getInventory().addItem(toAdd);
+            Integer limit = itemLimitManager.getLimit(material);
+            if (limit == null) return;
+            int amount = Math.min(canAdd, limit - itemLimitManager.countItemInInventory(player, material, limit));
+            if (amount <= 0) return;
 
-                player.updateInventory();
-                sendPartialMessage(player, material, canAdd, itemLimitManager.getLimit(material));
+            // Add to player inventory, then take only what actually fit from the source
+            ItemStack toAdd = stack.clone();
+            toAdd.setAmount(amount);
+            int leftover = 0;
+            for (ItemStack rest : player.getInventory().addItem(toAdd).values()) {
+                leftover += rest.getAmount();
             }
-        }.runTask(plugin);
+            int moved = amount - leftover;
+            if (moved <= 0) return;
+
+            stack.setAmount(stack.getAmount() - moved);
+            source.setItem(slot, stack.getAmount() > 0 ? stack : null);
+            plugin.getAcquisitionLimitManager().record(player, material, moved);
+
+            plugin.getInventoryUpdateScheduler().markDirty(player);
+            sendPartialMessage(player, material, moved, limit);
+        });
     }
 
     private void handlePartialTransferFromCursor(Player player, ItemStack cursor, Material material, int canAdd) {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (!player.isOnline()) return;
+        plugin.getEnforcementQueue().submit(player, EnforcementQueue.Kind.PARTIAL_TRANSFER, material, () -> {
+            if (!player.isOnline()) return;
 
-                // Add what we can to inventory
-                ItemStack toAdd = cursor.clone();
-                toAdd.setAmount(canAdd);
-                player.getInventory().addItem(toAdd);
+            // Add what we can to inventory
+            ItemStack toAdd = cursor.clone();
+            toAdd.setAmount(canAdd);
+            player.getInventory().addItem(toAdd);
 
-                // Drop the rest
-                ItemStack toDrop = cursor.clone();
-                toDrop.setAmount(cursor.getAmount() - canAdd);
-                player.getWorld().dropItemNaturally(player.getLocation(), toDrop);
+            // Drop the rest
+            ItemStack toDrop = cursor.clone();
+            toDrop.setAmount(cursor.getAmount() - canAdd);
+            player.getWorld().dropItemNaturally(player.getLocation(), toDrop);
 
-                // Clear cursor
-                player.setItemOnCursor(null);
-                player.updateInventory();
+            // Clear cursor
+            player.setItemOnCursor(null);
+            plugin.getInventoryUpdateScheduler().markDirty(player);
 
-                sendPartialMessage(player, material, canAdd, itemLimitManager.getLimit(material));
-            }
-        }.runTask(plugin);
+            sendPartialMessage(player, material, canAdd, itemLimitManager.getLimit(material));
+        });
     }
 
     private void dropCursorSafe(Player player) {
@@ -655,13 +836,19 @@ public class ItemLimitListener implements Listener {
 
         ItemStack drop = cursor.clone();
         player.setItemOnCursor(null);
+        audit(player, AuditLogManager.Action.CURSOR_DROPPED, drop.getType(), drop.getAmount());
 
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                player.getWorld().dropItemNaturally(player.getLocation(), drop);
-            }
-        }.runTask(plugin);
+        plugin.getEnforcementQueue().submit(player, EnforcementQueue.Kind.CURSOR_DROP,
+                () -> player.getWorld().dropItemNaturally(player.getLocation(), drop));
+    }
+
+    /**
+     * Queues a full excess check for the next tick; repeated requests in the same tick collapse into one.
+     */
+    private void queueExcessCheck(Player player) {
+        plugin.getEnforcementQueue().submit(player, EnforcementQueue.Kind.EXCESS_CHECK, () -> {
+            if (player.isOnline()) checkAndDropAllExcess(player);
+        });
     }
 
     /**
@@ -683,7 +870,7 @@ public class ItemLimitListener implements Listener {
                             .replace("{item}", format(material))
                             .replace("{limit}", String.valueOf(limit))
             ));
-            player.updateInventory();
+            plugin.getInventoryUpdateScheduler().markDirty(player);
         }
     }
 
@@ -693,8 +880,8 @@ public class ItemLimitListener implements Listener {
      */
     private void checkAndDropAllExcess(Player player) {
         int totalDropped = 0;
-        for (Material material : itemLimitManager.getLimitedItems().keySet()) {
-            totalDropped += itemLimitManager.dropExcess(player, material);
+        for (int dropped : itemLimitManager.dropAllExcess(player).values()) {
+            totalDropped += dropped;
         }
 
         if (totalDropped > 0) {
@@ -704,7 +891,7 @@ public class ItemLimitListener implements Listener {
                             "&eDropped &6{count} &eexcess limited items!"
                     ).replace("{count}", String.valueOf(totalDropped))
             ));
-            player.updateInventory();
+            plugin.getInventoryUpdateScheduler().markDirty(player);
         }
     }
 
@@ -758,16 +945,31 @@ public class ItemLimitListener implements Listener {
         if (result == null || result.getType() == Material.AIR) return false;
         if (!(human instanceof Player player)) return false;
 
-        if (itemLimitManager.isItemBanned(result)) return true;
+        if (itemLimitManager.isItemBanned(result)) {
+            audit(player, AuditLogManager.Action.CRAFT_BLOCKED, result.getType(), result.getAmount());
+            return true;
+        }
 
         if (itemLimitManager.isItemLimited(result)) {
+            if (!admit(player)) return true;
+
             int limit = itemLimitManager.getLimit(result);
-            int current = itemLimitManager.countItemInInventory(player, result.getType());
-            if (current >= limit) return true;
+            int current = itemLimitManager.countItemInInventory(player, result.getType(), limit);
+            if (current >= limit) {
+                audit(player, AuditLogManager.Action.CRAFT_BLOCKED, result.getType(), result.getAmount());
+                return true;
+            }
         }
         return false;
     }
 
+    private void audit(Player player, AuditLogManager.Action action, Material material, int amount) {
+        if (amount <= 0) return;
+        plugin.getMetricsManager().recordAction(action, material, amount);
+        plugin.getEnforcementAnalytics().record(player, material);
+        plugin.getAuditLogManager().log(player, action, material, amount);
+    }
+
     private String format(Material material) {
         String[] parts = material.name().toLowerCase().split("_");
         StringBuilder out = new StringBuilder();
@@ -1,44 +1,103 @@
 package net.saturn.itemlimiter.listeners;
 
 import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.managers.AuditLogManager;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
 import net.saturn.itemlimiter.managers.ItemLimitManager;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Merchant;
 import org.bukkit.inventory.MerchantInventory;
+import org.bukkit.inventory.MerchantRecipe;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
 
 public class VillagerTradeListener implements Listener {
 
     private final ItemLimiter plugin;
     private final ItemLimitManager itemLimitManager;
+    private final Map<MerchantRecipe, CappedRecipe> cappedRecipes = new IdentityHashMap<>();
+
+    /** Real max uses of a capped recipe, and the merchant entity it belongs to (null if not an entity). */
+    private record CappedRecipe(int maxUses, UUID merchant) {
+    }
 
     public VillagerTradeListener(ItemLimiter plugin, ItemLimitManager itemLimitManager) {
         this.plugin = plugin;
         this.itemLimitManager = itemLimitManager;
     }
 
+    /**
+     * Undoes any stock cap still in place, so it isn't saved with the merchant on shutdown.
+     */
+    public void restoreCappedRecipes() {
+        for (Map.Entry<MerchantRecipe, CappedRecipe> entry : cappedRecipes.entrySet()) {
+            entry.getKey().setMaxUses(entry.getValue().maxUses());
+        }
+        cappedRecipes.clear();
+    }
+
+    /**
+     * Undoes the stock caps of one merchant, before it is saved with its chunk or removed.
+     */
+    private void restoreCappedRecipes(UUID merchant) {
+        if (cappedRecipes.isEmpty()) return;
+
+        Iterator<Map.Entry<MerchantRecipe, CappedRecipe>> it = cappedRecipes.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<MerchantRecipe, CappedRecipe> entry = it.next();
+            if (merchant.equals(entry.getValue().merchant())) {
+                entry.getKey().setMaxUses(entry.getValue().maxUses());
+                it.remove();
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (cappedRecipes.isEmpty()) return;
+
+        for (Entity entity : event.getChunk().getEntities()) {
+            restoreCappedRecipes(entity.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onMerchantRemove(EntityRemoveFromWorldEvent event) {
+        restoreCappedRecipes(event.getEntity().getUniqueId());
+    }
+
+    /* ============================================================
+       TRADING
+       ============================================================ */
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
     public void onVillagerTrade(InventoryClickEvent event) {
         // Only handle merchant (villager/wandering trader) inventories
-        if (!(event.getInventory() instanceof MerchantInventory)) {
+        if (!(event.getInventory() instanceof MerchantInventory merchantInventory)) {
             return;
         }
 
-        if (!(event.getWhoClicked() instanceof Player)) {
+        if (!(event.getWhoClicked() instanceof Player player)) {
             return;
         }
 
-        Player player = (Player) event.getWhoClicked();
-
         // Check if clicking the result slot (slot 2 in merchant inventory)
         if (event.getRawSlot() != 2) {
             return;
         }
 
+        // The result slot holds whatever recipe the ingredients match, not necessarily the selected one
         ItemStack result = event.getCurrentItem();
         if (result == null || result.getType() == Material.AIR) {
             return;
@@ -55,6 +114,7 @@ public class VillagerTradeListener implements Listener {
         // If completely banned
         if (limit == 0) {
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRADE_BLOCKED, material, result.getAmount());
 
             String message = plugin.getConfig().getString(
                     "messages.item-blocked-trade-banned",
@@ -65,12 +125,13 @@ public class VillagerTradeListener implements Listener {
         }
 
         // Check if trading would exceed limit
-        int currentCount = itemLimitManager.countItemInInventory(player, material);
+        int currentCount = itemLimitManager.countItemInInventory(player, material, limit);
         int tradeAmount = result.getAmount();
 
         if (currentCount >= limit) {
             // Already at or over limit
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRADE_BLOCKED, material, tradeAmount);
 
             String message = plugin.getConfig().getString(
                             "messages.item-blocked-trade-limit",
@@ -82,6 +143,7 @@ public class VillagerTradeListener implements Listener {
         } else if (currentCount + tradeAmount > limit) {
             // Trade would exceed limit
             event.setCancelled(true);
+            audit(player, AuditLogManager.Action.TRADE_BLOCKED, material, tradeAmount);
 
             int canTrade = limit - currentCount;
             String message = plugin.getConfig().getString(
@@ -94,9 +156,62 @@ public class VillagerTradeListener implements Listener {
             return;
         }
 
+        if (event.isShiftClick()) {
+            MerchantRecipe recipe = activeRecipe(merchantInventory, result);
+            if (recipe == null) {
+                // Can't tell which recipe will repeat, so it can't be stopped at the limit
+                event.setCancelled(true);
+                return;
+            }
+            fitShiftTrade(merchantInventory.getMerchant(), recipe, (limit - currentCount) / tradeAmount);
+        }
+
         // Trade is within limits - allow it to proceed
     }
 
+    /**
+     * The recipe producing the result slot: the active recipe, as long as its
+     * result is the item being taken.
+     */
+    private MerchantRecipe activeRecipe(MerchantInventory inventory, ItemStack result) {
+        MerchantRecipe recipe = inventory.getSelectedRecipe();
+        return recipe != null && recipe.getResult().isSimilar(result) ? recipe : null;
+    }
+
+    /**
+     * A shift-click repeats the trade until ingredients, stock or inventory space
+     * run out. To stop it at the limit instead, the recipe is briefly made to run
+     * out of stock after exactly {@code fits} more uses; vanilla then performs that
+     * many trades (with the usual experience, stats and stock bookkeeping) and the
+     * original stock is restored next tick, or earlier if the merchant is unloaded
+     * or removed in between.
+     */
+    private void fitShiftTrade(Merchant merchant, MerchantRecipe recipe, int fits) {
+        if (recipe == null) return;
+
+        if (recipe.getUses() + fits >= recipe.getMaxUses()) return; // Stock runs out first anyway
+
+        // Keep the real stock if the recipe is already capped from an earlier click this tick
+        UUID merchantId = merchant instanceof Entity entity ? entity.getUniqueId() : null;
+        cappedRecipes.putIfAbsent(recipe, new CappedRecipe(recipe.getMaxUses(), merchantId));
+        recipe.setMaxUses(recipe.getUses() + fits);
+
+        // Not through the enforcement queue: a restore carried over to a later tick leaves the stock capped
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            CappedRecipe capped = cappedRecipes.remove(recipe);
+            if (capped != null) {
+                recipe.setMaxUses(capped.maxUses());
+            }
+        });
+    }
+
+    private void audit(Player player, AuditLogManager.Action action, Material material, int amount) {
+        if (amount <= 0) return;
+        plugin.getMetricsManager().recordAction(action, material, amount);
+        plugin.getEnforcementAnalytics().record(player, material);
+        plugin.getAuditLogManager().log(player, action, material, amount);
+    }
+
     private String formatItemName(ItemStack item) {
         return formatMaterialName(item.getType());
     }
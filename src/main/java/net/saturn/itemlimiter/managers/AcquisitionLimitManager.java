@@ -0,0 +1,575 @@
+package net.saturn.itemlimiter.managers;
+
+import io.papermc.paper.event.player.PlayerTradeEvent;
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.storage.AcquisitionLimit;
+import net.saturn.itemlimiter.storage.LimitStorage;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.CraftingInventory;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.MerchantInventory;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Time-windowed acquisition limits ("at most 16 enchanted golden apples per hour"),
+ * stored with the quantity limits. Items a player picks up, trades for, crafts or
+ * takes out of a container count toward a sliding window per player and material.
+ *
+ * Each window is a ring of {@link #BUCKETS} counters, each covering 1/BUCKETS of
+ * the window, plus a running sum; advancing clears at most BUCKETS slots, so
+ * checks and updates are O(1) and allocate nothing. A window is only allocated
+ * the first time a player acquires that material. Windows are saved as compact
+ * player data when the player leaves, every few minutes while they changed (so a
+ * crash doesn't reset allowances) and picked up again when they return.
+ */
+public class AcquisitionLimitManager implements Listener {
+
+    static final int BUCKETS = 12;
+    private static final String DATA_KEY = "acquisitions";
+    private static final int FORMAT = 1;
+    private static final long MESSAGE_COOLDOWN_MS = 2000L;
+
+    static final class Window {
+        private final int[] counts = new int[BUCKETS];
+        private final long bucketMillis;
+        private long head; // Absolute index of the newest bucket
+        private int sum;
+
+        Window(long bucketMillis, long now) {
+            this.bucketMillis = bucketMillis;
+            this.head = now / bucketMillis;
+        }
+
+        /**
+         * Moves the window to now, dropping buckets that fell out of it.
+         */
+        void advance(long now) {
+            long bucket = now / bucketMillis;
+            long gap = bucket - head;
+            if (gap <= 0) return;
+            if (gap >= BUCKETS) {
+                Arrays.fill(counts, 0);
+                sum = 0;
+            } else {
+                for (long i = head + 1; i <= bucket; i++) {
+                    int slot = (int) (i % BUCKETS);
+                    sum -= counts[slot];
+                    counts[slot] = 0;
+                }
+            }
+            head = bucket;
+        }
+
+        void add(int amount) {
+            counts[(int) (head % BUCKETS)] += amount;
+            sum += amount;
+        }
+
+        int sum() {
+            return sum;
+        }
+
+        /**
+         * Adds another window of the same width into this one.
+         */
+        Window merge(Window other, long now) {
+            advance(now);
+            other.advance(now);
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            sum += other.sum;
+            return this;
+        }
+    }
+
+    private final ItemLimiter plugin;
+    private final LimitStorage storage;
+    private final Map<Material, AcquisitionLimit> limits = new EnumMap<>(Material.class);
+    private final BitSet limitedBits = new BitSet(); // Material ordinal -> has an acquisition limit
+    private final Map<UUID, EnumMap<Material, Window>> windows = new HashMap<>();
+    private final Map<UUID, Long> messageCooldowns = new HashMap<>();
+    private final Set<UUID> loading = new HashSet<>(); // Players whose stored windows haven't arrived yet
+    private final Set<UUID> dirty = new HashSet<>(); // Players whose windows changed since they were last saved
+    private BukkitRunnable flushTask;
+
+    public AcquisitionLimitManager(ItemLimiter plugin, LimitStorage storage) {
+        this.plugin = plugin;
+        this.storage = storage;
+    }
+
+    public void load() {
+        limits.putAll(storage.loadAcquisitionLimits());
+        rebuildLookups();
+        if (!limits.isEmpty()) {
+            plugin.getLogger().info("Loaded " + limits.size() + " acquisition limits");
+        }
+
+        // Reloads: pick up windows of players who are already online
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            loadWindows(player.getUniqueId());
+        }
+
+        long interval = Math.max(1L, plugin.getConfig().getLong("acquisition-limits.flush-minutes", 2L)) * 60L * 20L;
+        flushTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                flushDirty();
+            }
+        };
+        flushTask.runTaskTimer(plugin, interval, interval);
+    }
+
+    /**
+     * Stops the periodic flush and saves the windows of everyone online; called on
+     * shutdown before the storage closes.
+     */
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel();
+        }
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            saveWindows(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Saves the windows that changed since the last save and has the storage write them out.
+     */
+    private void flushDirty() {
+        if (dirty.isEmpty()) return;
+        for (UUID player : dirty.toArray(new UUID[0])) {
+            saveWindows(player);
+        }
+        storage.flush();
+    }
+
+    /* ============================================================
+       LIMITS
+       ============================================================ */
+    public void setLimit(Material material, int max, int windowMinutes) {
+        AcquisitionLimit previous = limits.put(material, new AcquisitionLimit(max, windowMinutes));
+        if (previous != null && previous.windowMinutes() != windowMinutes) {
+            // Buckets of the old width can't be carried over
+            for (EnumMap<Material, Window> playerWindows : windows.values()) {
+                playerWindows.remove(material);
+            }
+        }
+        rebuildLookups();
+        storage.saveAcquisitionLimits(limits);
+    }
+
+    public boolean removeLimit(Material material) {
+        if (limits.remove(material) == null) return false;
+        for (EnumMap<Material, Window> playerWindows : windows.values()) {
+            playerWindows.remove(material);
+        }
+        rebuildLookups();
+        storage.saveAcquisitionLimits(limits);
+        return true;
+    }
+
+    public Map<Material, AcquisitionLimit> getLimits() {
+        return Collections.unmodifiableMap(limits);
+    }
+
+    /**
+     * O(1), no allocation.
+     */
+    public boolean isLimited(Material material) {
+        return limitedBits.get(material.ordinal());
+    }
+
+    private void rebuildLookups() {
+        limitedBits.clear();
+        for (Material material : limits.keySet()) {
+            limitedBits.set(material.ordinal());
+        }
+    }
+
+    static long bucketMillis(AcquisitionLimit limit) {
+        return Math.max(1L, limit.windowMinutes() * 60_000L / BUCKETS);
+    }
+
+    /* ============================================================
+       COUNTING
+       ============================================================ */
+    /**
+     * How many more items of the material the player may acquire in the current window.
+     */
+    public int remaining(Player player, Material material) {
+        AcquisitionLimit limit = limits.get(material);
+        if (limit == null) return Integer.MAX_VALUE;
+
+        EnumMap<Material, Window> playerWindows = windows.get(player.getUniqueId());
+        Window window = playerWindows != null ? playerWindows.get(material) : null;
+        if (window == null) return limit.max();
+
+        window.advance(System.currentTimeMillis());
+        return Math.max(0, limit.max() - window.sum);
+    }
+
+    public boolean wouldExceed(Player player, Material material, int amount) {
+        return isLimited(material) && amount > remaining(player, material);
+    }
+
+    /**
+     * Counts items the player acquired. Callers that move items themselves (partial
+     * pickups and transfers) call this directly; plain acquisitions are counted here.
+     */
+    public void record(Player player, Material material, int amount) {
+        AcquisitionLimit limit = limits.get(material);
+        if (limit == null || amount <= 0) return;
+
+        EnumMap<Material, Window> playerWindows = windows.get(player.getUniqueId());
+        if (playerWindows == null) {
+            playerWindows = new EnumMap<>(Material.class);
+            windows.put(player.getUniqueId(), playerWindows);
+        }
+        long now = System.currentTimeMillis();
+        Window window = playerWindows.get(material);
+        if (window == null) {
+            window = new Window(bucketMillis(limit), now);
+            playerWindows.put(material, window);
+        }
+        window.advance(now);
+        window.add(amount);
+        dirty.add(player.getUniqueId());
+    }
+
+    /* ============================================================
+       CHECKS
+       Run first (LOWEST), so a denied acquisition never reaches the
+       quantity limiter; counted at MONITOR once nothing cancelled it.
+       ============================================================ */
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+        ItemStack stack = event.getItem().getItemStack();
+        if (wouldExceed(player, stack.getType(), stack.getAmount())) {
+            event.setCancelled(true);
+            sendLimitMessage(player, stack.getType());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickupCounted(EntityPickupItemEvent event) {
+        if (!(event.getEntity() instanceof Player player)) return;
+        ItemStack stack = event.getItem().getItemStack();
+        record(player, stack.getType(), stack.getAmount() - event.getRemaining());
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onTrade(PlayerTradeEvent event) {
+        ItemStack result = event.getTrade().getResult();
+        if (wouldExceed(event.getPlayer(), result.getType(), result.getAmount())) {
+            event.setCancelled(true);
+            sendLimitMessage(event.getPlayer(), result.getType());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTradeCounted(PlayerTradeEvent event) {
+        ItemStack result = event.getTrade().getResult();
+        record(event.getPlayer(), result.getType(), result.getAmount());
+    }
+
+    /**
+     * Taking from a chest, furnace or other container, or from a crafting result slot.
+     * Trades are counted per trade by {@link #onTrade}.
+     */
+    @EventHandler(priority = EventPriority.LOWEST, ignoreCancelled = true)
+    public void onTake(InventoryClickEvent event) {
+        if (limits.isEmpty() || !(event.getWhoClicked() instanceof Player player)) return;
+
+        ItemStack taken = takenItem(event);
+        if (taken == null || !isLimited(taken.getType())) return;
+
+        int amount = takenAmount(event, player);
+        if (amount > 0 && amount > remaining(player, taken.getType())) {
+            event.setCancelled(true);
+            sendLimitMessage(player, taken.getType());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTakeCounted(InventoryClickEvent event) {
+        if (limits.isEmpty() || !(event.getWhoClicked() instanceof Player player)) return;
+
+        ItemStack taken = takenItem(event);
+        if (taken == null || !isLimited(taken.getType())) return;
+
+        record(player, taken.getType(), takenAmount(event, player));
+    }
+
+    /**
+     * The stack whose type the click acquires: the cursor for a double-click collect,
+     * otherwise the clicked slot.
+     */
+    private ItemStack takenItem(InventoryClickEvent event) {
+        return event.getAction() == InventoryAction.COLLECT_TO_CURSOR ? event.getCursor() : event.getCurrentItem();
+    }
+
+    /**
+     * Items the click moves from a foreign inventory to the player, or 0 if it doesn't.
+     * Shift-clicks count what fits in the player's inventory; shift-crafting counts
+     * every craft the grid allows, as far as the results fit. A double-click collect
+     * counts the matching stacks it gathers from the top inventory, up to a full cursor.
+     */
+    private int takenAmount(InventoryClickEvent event, Player player) {
+        if (event.getAction() == InventoryAction.COLLECT_TO_CURSOR) {
+            if (event.getView().getTopInventory() instanceof MerchantInventory) return 0;
+            return InventoryClicks.collectedFromTop(event, player);
+        }
+
+        Inventory clicked = event.getClickedInventory();
+        if (clicked == null || clicked == player.getInventory() || clicked.equals(player.getEnderChest())) return 0;
+        if (clicked instanceof MerchantInventory) return 0;
+
+        int amount = event.getCurrentItem().getAmount();
+        switch (event.getAction()) {
+            case PICKUP_ALL, PICKUP_SOME, HOTBAR_SWAP, HOTBAR_MOVE_AND_READD, SWAP_WITH_CURSOR -> {
+                return amount;
+            }
+            case PICKUP_HALF -> {
+                return (amount + 1) / 2;
+            }
+            case PICKUP_ONE -> {
+                return 1;
+            }
+            case MOVE_TO_OTHER_INVENTORY -> {
+                int moved = amount;
+                if (clicked instanceof CraftingInventory crafting && event.getSlotType() == InventoryType.SlotType.RESULT) {
+                    moved = amount * maxCrafts(crafting);
+                }
+                return Math.min(moved, freeSpace(player, event.getCurrentItem()));
+            }
+            default -> {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * How many of the item fit in the player's main inventory: empty slots plus room on similar stacks.
+     */
+    private static int freeSpace(Player player, ItemStack item) {
+        int maxStack = item.getMaxStackSize();
+        int space = 0;
+        for (ItemStack stack : player.getInventory().getStorageContents()) {
+            if (stack == null || stack.getType() == Material.AIR) {
+                space += maxStack;
+            } else if (stack.isSimilar(item)) {
+                space += Math.max(0, maxStack - stack.getAmount());
+            }
+        }
+        return space;
+    }
+
+    private static int maxCrafts(CraftingInventory crafting) {
+        int crafts = Integer.MAX_VALUE;
+        for (ItemStack ingredient : crafting.getMatrix()) {
+            if (ingredient != null && ingredient.getType() != Material.AIR) {
+                crafts = Math.min(crafts, ingredient.getAmount());
+            }
+        }
+        return crafts == Integer.MAX_VALUE ? 1 : crafts;
+    }
+
+    /* ============================================================
+       PERSISTENCE
+       ============================================================ */
+    @EventHandler
+    public void onJoin(PlayerJoinEvent event) {
+        loadWindows(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event) {
+        saveWindows(event.getPlayer().getUniqueId());
+        windows.remove(event.getPlayer().getUniqueId());
+        dirty.remove(event.getPlayer().getUniqueId());
+        messageCooldowns.remove(event.getPlayer().getUniqueId());
+        loading.remove(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Reads the stored windows off the main thread; they are decoded and merged
+     * with anything acquired in the meantime back on the main thread.
+     */
+    private void loadWindows(UUID player) {
+        if (limits.isEmpty()) return;
+        loading.add(player);
+        storage.loadPlayerDataAsync(player, DATA_KEY).thenAccept(value -> runOnMainThread(() -> applyLoaded(player, value)));
+    }
+
+    private void applyLoaded(UUID player, String value) {
+        if (!loading.remove(player) || value == null) return; // Left before the windows arrived, or none stored
+
+        try {
+            EnumMap<Material, Window> decoded = decode(value);
+            if (decoded.isEmpty()) return;
+
+            EnumMap<Material, Window> current = windows.get(player);
+            if (current == null) {
+                windows.put(player, decoded);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Material, Window> entry : decoded.entrySet()) {
+                current.merge(entry.getKey(), entry.getValue(), (mine, stored) -> mine.merge(stored, now));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            plugin.getLogger().warning("Discarding unreadable acquisition counters of " + player + ": " + e.getMessage());
+        }
+    }
+
+    private void runOnMainThread(Runnable task) {
+        if (plugin.getServer().isPrimaryThread()) {
+            task.run();
+        } else if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, task);
+        }
+    }
+
+    private void saveWindows(UUID player) {
+        // Saving before the stored windows arrived would overwrite them with a partial window
+        if (loading.contains(player)) return;
+
+        EnumMap<Material, Window> playerWindows = windows.get(player);
+        dirty.remove(player);
+        if (playerWindows == null) return;
+        try {
+            storage.savePlayerData(player, DATA_KEY, encode(playerWindows));
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save acquisition counters of " + player + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Base64 of: format byte, then per non-empty window the material name, bucket
+     * width, newest bucket index and the bucket counts as varints. Null if empty.
+     */
+    String encode(EnumMap<Material, Window> playerWindows) throws IOException {
+        long now = System.currentTimeMillis();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT);
+        boolean any = false;
+        for (Map.Entry<Material, Window> entry : playerWindows.entrySet()) {
+            Window window = entry.getValue();
+            window.advance(now);
+            if (window.sum == 0) continue;
+
+            out.writeUTF(entry.getKey().name());
+            out.writeLong(window.bucketMillis);
+            out.writeLong(window.head);
+            for (int count : window.counts) {
+                writeVarInt(out, count);
+            }
+            any = true;
+        }
+        return any ? Base64.getEncoder().encodeToString(bytes.toByteArray()) : null;
+    }
+
+    EnumMap<Material, Window> decode(String value) throws IOException {
+        long now = System.currentTimeMillis();
+        EnumMap<Material, Window> decoded = new EnumMap<>(Material.class);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(value)));
+        if (in.readByte() != FORMAT) {
+            throw new IOException("Unknown format");
+        }
+
+        while (in.available() > 0) {
+            Material material = Material.getMaterial(in.readUTF());
+            long bucketMillis = in.readLong();
+            long head = in.readLong();
+            int[] counts = new int[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = readVarInt(in);
+            }
+
+            // Skip windows whose limit was removed or changed width since they were saved
+            AcquisitionLimit limit = material != null ? limits.get(material) : null;
+            if (limit == null || bucketMillis(limit) != bucketMillis) continue;
+
+            Window window = new Window(bucketMillis, 0L);
+            window.head = head;
+            System.arraycopy(counts, 0, window.counts, 0, BUCKETS);
+            for (int count : counts) {
+                window.sum += count;
+            }
+            window.advance(now);
+            if (window.sum > 0) {
+                decoded.put(material, window);
+            }
+        }
+        return decoded;
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("VarInt too long");
+    }
+
+    /* ============================================================
+       HELPERS
+       ============================================================ */
+    private void sendLimitMessage(Player player, Material material) {
+        long now = System.currentTimeMillis();
+        Long last = messageCooldowns.get(player.getUniqueId());
+        if (last != null && now - last < MESSAGE_COOLDOWN_MS) return;
+        messageCooldowns.put(player.getUniqueId(), now);
+
+        AcquisitionLimit limit = limits.get(material);
+        player.sendMessage(colorize(plugin.getConfig().getString("messages.item-acquisition-limit",
+                        "&cYou can only acquire &6{max} &e{item}&c every {window} minutes - try again later!")
+                .replace("{item}", material.name().toLowerCase().replace('_', ' '))
+                .replace("{max}", String.valueOf(limit.max()))
+                .replace("{window}", String.valueOf(limit.windowMinutes()))));
+    }
+
+    private static String colorize(String msg) {
+        return net.md_5.bungee.api.ChatColor.translateAlternateColorCodes('&', msg);
+    }
+}
@@ -0,0 +1,230 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only, rotating audit log of enforcement actions, UTF-8 encoded.
+ * The main thread only pushes entries onto a lock-free queue; a dedicated
+ * writer thread drains it in batches and does all file I/O. The file is rotated
+ * once its size on disk reaches audit.max-file-size-kb.
+ *
+ * Line format (tab separated):
+ * time, uuid, player, action, material, amount, world, x, y, z
+ */
+public class AuditLogManager {
+
+    public enum Action {
+        EXCESS_DROPPED,
+        PICKUP_BLOCKED,
+        PICKUP_PARTIAL,
+        TRANSFER_BLOCKED,
+        TRANSFER_PARTIAL,
+        CURSOR_DROPPED,
+        TRADE_BLOCKED,
+        CRAFT_BLOCKED,
+        CONTAINER_PURGED
+    }
+
+    public record Entry(long time, UUID uuid, String player, Action action, Material material, int amount,
+                        String world, int x, int y, int z) {
+
+        String toLine() {
+            return time + "\t" + uuid + "\t" + player + "\t" + action.name() + "\t" + material.name() + "\t"
+                    + amount + "\t" + world + "\t" + x + "\t" + y + "\t" + z;
+        }
+
+        static Entry fromLine(String line) {
+            String[] parts = line.split("\t");
+            if (parts.length != 10) return null;
+            try {
+                return new Entry(Long.parseLong(parts[0]), UUID.fromString(parts[1]), parts[2],
+                        Action.valueOf(parts[3]), Material.valueOf(parts[4]), Integer.parseInt(parts[5]),
+                        parts[6], Integer.parseInt(parts[7]), Integer.parseInt(parts[8]), Integer.parseInt(parts[9]));
+            } catch (IllegalArgumentException e) {
+                return null; // Partially written or foreign line
+            }
+        }
+    }
+
+    private static final int MAX_BATCH = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final ItemLimiter plugin;
+    private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+    private final File logDir;
+    private final File logFile;
+    private final boolean enabled;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Only touched by the writer thread
+    private BufferedWriter writer;
+
+    public AuditLogManager(ItemLimiter plugin) {
+        this.plugin = plugin;
+        this.logDir = new File(plugin.getDataFolder(), "audit");
+        this.logFile = new File(logDir, "audit.log");
+        this.enabled = plugin.getConfig().getBoolean("audit.enabled", true);
+        this.maxFileBytes = plugin.getConfig().getLong("audit.max-file-size-kb", 1024) * 1024L;
+        this.maxFiles = Math.max(1, plugin.getConfig().getInt("audit.max-files", 5));
+    }
+
+    public void start() {
+        if (!enabled || running) return;
+        running = true;
+        writerThread = new Thread(this::runWriter, "ItemLimiter-AuditWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stops the writer thread after flushing everything still queued.
+     */
+    public void stop() {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records an enforcement action at the player's current location.
+     * Must be called from the main thread; only enqueues the entry.
+     */
+    public void log(Player player, Action action, Material material, int amount) {
+        if (amount <= 0 || !running) return;
+        Location loc = player.getLocation();
+        queue.offer(new Entry(System.currentTimeMillis(), player.getUniqueId(), player.getName(), action, material,
+                amount, loc.getWorld() != null ? loc.getWorld().getName() : "-",
+                loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+    }
+
+    /**
+     * Reads the most recent entries for a player (matched by name or UUID) from
+     * the current and rotated log files. Performs file I/O - call off the main thread.
+     */
+    public List<Entry> readRecent(String player, int limit) {
+        Deque<Entry> recent = new ArrayDeque<>(limit);
+        for (int i = maxFiles - 1; i >= 0; i--) {
+            File file = i == 0 ? logFile : new File(logDir, "audit.log." + i);
+            if (!file.exists()) continue;
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Entry entry = Entry.fromLine(line);
+                    if (entry == null) continue;
+                    if (!entry.player().equalsIgnoreCase(player) && !entry.uuid().toString().equalsIgnoreCase(player)) {
+                        continue;
+                    }
+                    if (recent.size() == limit) {
+                        recent.pollFirst();
+                    }
+                    recent.addLast(entry);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not read " + file.getName() + ": " + e.getMessage());
+            }
+        }
+        return new ArrayList<>(recent);
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            Entry entry;
+            while (batch.size() < MAX_BATCH && (entry = queue.poll()) != null) {
+                batch.add(entry);
+            }
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            writeBatch(batch);
+            batch.clear();
+        }
+        closeWriter();
+    }
+
+    private void writeBatch(List<Entry> batch) {
+        try {
+            if (writer == null) {
+                openWriter();
+            }
+            for (Entry entry : batch) {
+                writer.write(entry.toLine());
+                writer.newLine();
+            }
+            writer.flush();
+
+            if (Files.size(logFile.toPath()) >= maxFileBytes) {
+                rotate();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write audit log: " + e.getMessage());
+            closeWriter();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        logDir.mkdirs();
+        writer = Files.newBufferedWriter(logFile.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void rotate() throws IOException {
+        closeWriter();
+        File oldest = new File(logDir, "audit.log." + (maxFiles - 1));
+        if (oldest.exists()) {
+            oldest.delete();
+        }
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            File file = new File(logDir, "audit.log." + i);
+            if (file.exists()) {
+                file.renameTo(new File(logDir, "audit.log." + (i + 1)));
+            }
+        }
+        if (maxFiles > 1) {
+            logFile.renameTo(new File(logDir, "audit.log.1"));
+        } else {
+            logFile.delete();
+        }
+        openWriter();
+    }
+
+    private void closeWriter() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+}
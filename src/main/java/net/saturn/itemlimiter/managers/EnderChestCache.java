@@ -0,0 +1,71 @@
+package net.saturn.itemlimiter.managers;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Caches per-player counts of limited materials stored in the ender chest
+ * (including items nested in bundles and shulker boxes).
+ * Counts are only recomputed after the ender chest was changed or closed,
+ * so limit checks read a cached value instead of rescanning 27 slots.
+ */
+public class EnderChestCache {
+
+    private final ItemLimitManager itemLimitManager;
+    private final MetricsManager metricsManager;
+    private final Map<UUID, EnumMap<Material, Integer>> counts = new HashMap<>();
+
+    public EnderChestCache(ItemLimitManager itemLimitManager, MetricsManager metricsManager) {
+        this.itemLimitManager = itemLimitManager;
+        this.metricsManager = metricsManager;
+    }
+
+    /**
+     * Returns how many of a material the player holds in their ender chest.
+     * The ender chest is only scanned if no cached counts exist for this player.
+     */
+    public int getCount(Player player, Material material) {
+        EnumMap<Material, Integer> playerCounts = counts.get(player.getUniqueId());
+        metricsManager.recordEnderChestLookup(playerCounts != null);
+        if (playerCounts == null) {
+            playerCounts = recompute(player);
+        }
+        return playerCounts.getOrDefault(material, 0);
+    }
+
+    /**
+     * Rescans the player's ender chest and stores the counts of all limited materials.
+     */
+    public EnumMap<Material, Integer> recompute(Player player) {
+        EnumMap<Material, Integer> playerCounts = new EnumMap<>(Material.class);
+        for (ItemStack item : player.getEnderChest().getContents()) {
+            itemLimitManager.tallyLimitedItems(item, playerCounts);
+        }
+        counts.put(player.getUniqueId(), playerCounts);
+        return playerCounts;
+    }
+
+    /**
+     * Marks the player's cached counts as stale; they are rebuilt on the next lookup.
+     */
+    public void invalidate(Player player) {
+        counts.remove(player.getUniqueId());
+    }
+
+    public void remove(UUID uuid) {
+        counts.remove(uuid);
+    }
+
+    /**
+     * Drops all cached counts, e.g. after the set of limited materials changed.
+     */
+    public void clear() {
+        counts.clear();
+    }
+}
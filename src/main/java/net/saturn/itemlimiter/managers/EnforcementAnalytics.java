@@ -0,0 +1,131 @@
+package net.saturn.itemlimiter.managers;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Which materials and players cause the most enforcement actions, in bounded memory.
+ * Material totals are LongAdders (the material set is small and fixed); players
+ * go through a {@link SpaceSavingSketch}, so memory stays constant no matter how
+ * many unique players the server has seen.
+ *
+ * Counts cover a rolling window: every {@code windowMillis} the current window
+ * becomes the previous one and a fresh window starts. Queries report both
+ * together, i.e. between one and two windows of history.
+ */
+public class EnforcementAnalytics {
+
+    private static final class Window {
+        final Map<Material, LongAdder> materials = new ConcurrentHashMap<>();
+        final SpaceSavingSketch<UUID> players;
+
+        Window(int capacity) {
+            this.players = new SpaceSavingSketch<>(capacity);
+        }
+    }
+
+    public record Ranked(String name, long count, long error) {
+    }
+
+    private final long windowMillis;
+    private final int capacity;
+    private Window current;
+    private Window previous;
+    private long windowStart;
+
+    public EnforcementAnalytics(long windowMillis, int capacity) {
+        this.windowMillis = Math.max(60_000L, windowMillis);
+        this.capacity = capacity;
+        this.current = new Window(capacity);
+        this.previous = new Window(capacity);
+        this.windowStart = System.currentTimeMillis();
+    }
+
+    /**
+     * Counts one enforcement action. Main thread only.
+     */
+    public void record(Player player, Material material) {
+        rotateIfDue();
+        LongAdder total = current.materials.get(material);
+        if (total == null) {
+            total = current.materials.computeIfAbsent(material, k -> new LongAdder());
+        }
+        total.increment();
+        current.players.offer(player.getUniqueId(), player.getName(), 1L);
+    }
+
+    public List<Ranked> topMaterials(int limit) {
+        rotateIfDue();
+        Map<Material, Long> totals = new HashMap<>();
+        for (Window window : new Window[]{previous, current}) {
+            for (Map.Entry<Material, LongAdder> entry : window.materials.entrySet()) {
+                totals.merge(entry.getKey(), entry.getValue().sum(), Long::sum);
+            }
+        }
+
+        List<Ranked> ranked = new ArrayList<>(totals.size());
+        for (Map.Entry<Material, Long> entry : totals.entrySet()) {
+            ranked.add(new Ranked(entry.getKey().name(), entry.getValue(), 0L));
+        }
+        return sorted(ranked, limit);
+    }
+
+    /**
+     * Returns the players with the most enforcement actions. Counts may be
+     * overestimated by up to {@link Ranked#error()}.
+     */
+    public List<Ranked> topPlayers(int limit) {
+        rotateIfDue();
+        Map<UUID, Ranked> merged = new LinkedHashMap<>();
+        for (Window window : new Window[]{previous, current}) {
+            for (SpaceSavingSketch.Entry<UUID> entry : window.players.top(capacity)) {
+                merged.merge(entry.key(), new Ranked(entry.label(), entry.count(), entry.error()),
+                        (a, b) -> new Ranked(b.name(), a.count() + b.count(), a.error() + b.error()));
+            }
+        }
+        return sorted(new ArrayList<>(merged.values()), limit);
+    }
+
+    /**
+     * Minutes covered by the current query results.
+     */
+    public long coveredMinutes() {
+        rotateIfDue();
+        long covered = System.currentTimeMillis() - windowStart;
+        if (!previous.materials.isEmpty() || !previous.players.isEmpty()) {
+            covered += windowMillis;
+        }
+        return covered / 60_000L;
+    }
+
+    public void reset() {
+        current = new Window(capacity);
+        previous = new Window(capacity);
+        windowStart = System.currentTimeMillis();
+    }
+
+    private void rotateIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart < windowMillis) return;
+
+        // After a gap longer than two windows the old data is stale too
+        previous = now - windowStart < 2 * windowMillis ? current : new Window(capacity);
+        current = new Window(capacity);
+        windowStart = now;
+    }
+
+    private List<Ranked> sorted(List<Ranked> ranked, int limit) {
+        ranked.sort(Comparator.comparingLong(Ranked::count).reversed());
+        return ranked.size() > limit ? ranked.subList(0, limit) : ranked;
+    }
+}
@@ -0,0 +1,148 @@
+package net.saturn.itemlimiter.managers;
+
+import com.destroystokyo.paper.event.server.ServerTickStartEvent;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Deferred enforcement work, drained at the start of each tick. Work is keyed by
+ * player, {@link Kind} and (for per-material work) material: a second request of the same kind for the same player
+ * is folded into the one already queued, so e.g. a burst of inventory closes
+ * results in a single excess check. At most {@code maxPerTick} entries run per
+ * tick, optionally fewer per kind; the rest carry over. An empty queue costs one isEmpty check per tick.
+ */
+public class EnforcementQueue implements Listener {
+
+    public enum Kind {
+        /** Full excess check for all limited materials. */
+        EXCESS_CHECK(false),
+        /** Completes a partially allowed transfer. Only the first one per material and tick runs, later ones were computed from the same count. */
+        PARTIAL_TRANSFER(false),
+        /** Drops items taken off the cursor. Every request runs, as each carries its own items. */
+        CURSOR_DROP(true),
+        /** Excess check after a join; rate limited to spread out join storms. The action should look the player up again, they may have relogged. */
+        JOIN_CHECK(false);
+
+        private final boolean merge;
+
+        Kind(boolean merge) {
+            this.merge = merge;
+        }
+    }
+
+    private record Key(UUID player, Kind kind, Material material) {
+    }
+
+    private static final class Work {
+        final Player player;
+        long dueTick;
+        Runnable action;
+
+        Work(Player player, long dueTick, Runnable action) {
+            this.player = player;
+            this.dueTick = dueTick;
+            this.action = action;
+        }
+    }
+
+    private final Map<Key, Work> queue = new LinkedHashMap<>();
+    private final Logger logger;
+    private final int maxPerTick;
+    private final int[] kindLimits = new int[Kind.values().length];
+    private long tick;
+
+    public EnforcementQueue(Logger logger, int maxPerTick) {
+        this.logger = logger;
+        this.maxPerTick = Math.max(1, maxPerTick);
+        Arrays.fill(kindLimits, this.maxPerTick);
+    }
+
+    /**
+     * Caps how many entries of one kind run per tick, below the overall cap.
+     * Entries over the cap wait in order without holding back other kinds.
+     */
+    public void limitPerTick(Kind kind, int max) {
+        kindLimits[kind.ordinal()] = Math.max(1, Math.min(max, maxPerTick));
+    }
+
+    /**
+     * Queues work for the next tick.
+     */
+    public void submit(Player player, Kind kind, Runnable action) {
+        submit(player, kind, 1L, action);
+    }
+
+    /**
+     * Queues per-material work for the next tick; requests for different materials don't fold together.
+     */
+    public void submit(Player player, Kind kind, Material material, Runnable action) {
+        submit(player, kind, material, 1L, action);
+    }
+
+    /**
+     * Queues work to run after the given number of ticks (at least one). If work of
+     * the same kind is already queued for the player it runs at the earlier of both
+     * due ticks; the new action is appended for merging kinds and dropped otherwise.
+     */
+    public void submit(Player player, Kind kind, long delayTicks, Runnable action) {
+        submit(player, kind, null, delayTicks, action);
+    }
+
+    private void submit(Player player, Kind kind, Material material, long delayTicks, Runnable action) {
+        long due = tick + Math.max(1L, delayTicks);
+        Key key = new Key(player.getUniqueId(), kind, material);
+        Work queued = queue.get(key);
+        if (queued == null) {
+            queue.put(key, new Work(player, due, action));
+            return;
+        }
+
+        queued.dueTick = Math.min(queued.dueTick, due);
+        if (kind.merge) {
+            Runnable first = queued.action;
+            queued.action = () -> {
+                first.run();
+                action.run();
+            };
+        }
+    }
+
+    @EventHandler
+    public void onTickStart(ServerTickStartEvent event) {
+        tick++;
+        if (queue.isEmpty()) return;
+
+        // Take the due work out first, so actions can queue follow-up work while running
+        List<Work> due = new ArrayList<>(Math.min(maxPerTick, queue.size()));
+        int[] taken = new int[kindLimits.length];
+        Iterator<Map.Entry<Key, Work>> it = queue.entrySet().iterator();
+        while (it.hasNext() && due.size() < maxPerTick) {
+            Map.Entry<Key, Work> entry = it.next();
+            Work work = entry.getValue();
+            int kind = entry.getKey().kind().ordinal();
+            if (work.dueTick > tick || taken[kind] >= kindLimits[kind]) continue;
+            it.remove();
+            taken[kind]++;
+            due.add(work);
+        }
+
+        for (Work work : due) {
+            try {
+                work.action.run();
+            } catch (RuntimeException e) {
+                logger.warning("Enforcement work for " + work.player.getName() + " failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package net.saturn.itemlimiter.managers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player token bucket for enforcement work that has to count the inventory.
+ * Each such check takes a token; tokens refill at a fixed rate up to a burst
+ * capacity. A player whose bucket is empty (macro clickers, drop/pickup loops)
+ * gets the cheap deny-by-default path instead, so no single player can spend the
+ * tick on inventory scans.
+ */
+public class EnforcementRateLimiter {
+
+    private static final class Bucket {
+        double tokens;
+        long lastRefill;
+
+        Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+    }
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final Map<UUID, Bucket> buckets = new HashMap<>();
+
+    public EnforcementRateLimiter(int capacity, double refillPerSecond) {
+        this.capacity = Math.max(1, capacity);
+        this.tokensPerNano = Math.max(0.1, refillPerSecond) / 1e9;
+    }
+
+    /**
+     * Takes a token for the player. Returns false if the bucket is empty.
+     */
+    public boolean tryAcquire(UUID player) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(player);
+        if (bucket == null) {
+            buckets.put(player, new Bucket(capacity - 1, now));
+            return true;
+        }
+
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.lastRefill) * tokensPerNano);
+        bucket.lastRefill = now;
+        if (bucket.tokens < 1) {
+            return false;
+        }
+        bucket.tokens--;
+        return true;
+    }
+
+    public void remove(UUID player) {
+        buckets.remove(player);
+    }
+}
@@ -0,0 +1,146 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Re-enforces a single material across all online players after its limit was
+ * tightened. Each wave walks a snapshot of the online players, checking only the
+ * changed material, and stops for the tick once its time budget is used up.
+ * Progress and totals are reported to whoever changed the limit.
+ */
+public class EnforcementWaves {
+
+    private static final long REPORT_INTERVAL_TICKS = 40L;
+
+    private final ItemLimiter plugin;
+    private final ItemLimitManager itemLimitManager;
+    private final long budgetNanos;
+    private final Map<Material, Wave> running = new EnumMap<>(Material.class);
+
+    public EnforcementWaves(ItemLimiter plugin, ItemLimitManager itemLimitManager) {
+        this.plugin = plugin;
+        this.itemLimitManager = itemLimitManager;
+        this.budgetNanos = Math.max(1L, plugin.getConfig().getLong("enforcement.wave-budget-micros", 2000L)) * 1000L;
+    }
+
+    /**
+     * Starts a wave for the material, replacing one that is still running for it.
+     */
+    public void start(Material material, CommandSender reportTo) {
+        Wave previous = running.remove(material);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        Wave wave = new Wave(material, reportTo);
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            wave.pending.add(player.getUniqueId());
+        }
+        if (wave.pending.isEmpty()) return;
+
+        running.put(material, wave);
+        wave.total = wave.pending.size();
+        wave.runTaskTimer(plugin, 1L, 1L);
+        wave.report("&7Re-enforcing &e" + wave.itemName + " &7for &6" + wave.total + " &7online players...");
+    }
+
+    private final class Wave extends BukkitRunnable {
+
+        private final Material material;
+        private final CommandSender reportTo;
+        private final String itemName;
+        private final Deque<UUID> pending = new ArrayDeque<>();
+        private int total;
+        private int checked;
+        private int affectedPlayers;
+        private int droppedItems;
+        private long ticks;
+
+        Wave(Material material, CommandSender reportTo) {
+            this.material = material;
+            this.reportTo = reportTo;
+            this.itemName = formatMaterialName(material);
+        }
+
+        @Override
+        public void run() {
+            // Limit removed meanwhile; nothing left to enforce
+            if (!plugin.isEnabled() || !itemLimitManager.isItemLimited(material)) {
+                finish();
+                return;
+            }
+
+            long deadline = System.nanoTime() + budgetNanos;
+            // Always make progress, even if a single player takes longer than the budget
+            do {
+                UUID uuid = pending.poll();
+                if (uuid == null) break;
+                Player player = plugin.getServer().getPlayer(uuid);
+                if (player != null && player.isOnline()) {
+                    enforce(player);
+                }
+                checked++;
+            } while (System.nanoTime() < deadline);
+
+            if (pending.isEmpty()) {
+                finish();
+                return;
+            }
+            if (++ticks % REPORT_INTERVAL_TICKS == 0) {
+                report("&7Re-enforcing &e" + itemName + "&7: &6" + checked + "&7/&6" + total
+                        + " &7players checked, &6" + droppedItems + " &7items dropped");
+            }
+        }
+
+        private void enforce(Player player) {
+            int dropped = itemLimitManager.dropExcess(player, material);
+            if (dropped <= 0) return;
+
+            affectedPlayers++;
+            droppedItems += dropped;
+            player.sendMessage(colorize(plugin.getConfig().getString(
+                            "messages.item-excess-dropped",
+                            "&cDropped &e{amount} {item}&c - over limit!")
+                    .replace("{amount}", String.valueOf(dropped))
+                    .replace("{item}", itemName)));
+            plugin.getInventoryUpdateScheduler().markDirty(player);
+        }
+
+        private void finish() {
+            cancel();
+            running.remove(material, this);
+            report("&aRe-enforced &e" + itemName + "&a: &6" + checked + " &aplayers checked, &6"
+                    + affectedPlayers + " &ahad excess, &6" + droppedItems + " &aitems dropped.");
+        }
+
+        private void report(String message) {
+            if (reportTo instanceof Player player && !player.isOnline()) return;
+            reportTo.sendMessage(colorize(message));
+        }
+    }
+
+    private static String formatMaterialName(Material material) {
+        String[] parts = material.name().toLowerCase().split("_");
+        StringBuilder out = new StringBuilder();
+        for (String p : parts) {
+            out.append(Character.toUpperCase(p.charAt(0)))
+                    .append(p.substring(1))
+                    .append(" ");
+        }
+        return out.toString().trim();
+    }
+
+    private static String colorize(String msg) {
+        return net.md_5.bungee.api.ChatColor.translateAlternateColorCodes('&', msg);
+    }
+}
@@ -0,0 +1,68 @@
+package net.saturn.itemlimiter.managers;
+
+import org.bukkit.Material;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of planning excess removal for a player: which stacks (top-level
+ * or nested inside a container) lose how many items. Built from a read-only
+ * snapshot by {@link ItemLimitManager#planExcessRemoval} and committed in one
+ * write per inventory by {@link ItemLimitManager#applyExcessRemoval}.
+ */
+public class ExcessRemovalPlan {
+
+    /**
+     * A single removal. {@code slot} indexes PlayerInventory#getContents (or the
+     * ender chest contents), {@code path} the container contents below it, outermost
+     * first (a bundle inside a shulker box is two levels), or is empty for the stack itself.
+     */
+    public record Removal(Material material, boolean enderChest, int slot, int[] path, int amount) {
+
+        public boolean isNested() {
+            return path.length > 0;
+        }
+    }
+
+    private final List<Removal> removals = new ArrayList<>();
+    private final Map<Material, Integer> totals = new EnumMap<>(Material.class);
+
+    void add(Removal removal) {
+        removals.add(removal);
+        totals.merge(removal.material(), removal.amount(), Integer::sum);
+    }
+
+    /**
+     * Drops every removal of the material from the plan.
+     */
+    void remove(Material material) {
+        removals.removeIf(removal -> removal.material() == material);
+        totals.remove(material);
+    }
+
+    public List<Removal> getRemovals() {
+        return Collections.unmodifiableList(removals);
+    }
+
+    /**
+     * Items to remove per material.
+     */
+    public Map<Material, Integer> getTotals() {
+        return Collections.unmodifiableMap(totals);
+    }
+
+    public boolean isEmpty() {
+        return removals.isEmpty();
+    }
+
+    boolean touchesEnderChest() {
+        for (Removal removal : removals) {
+            if (removal.enderChest()) return true;
+        }
+        return false;
+    }
+}
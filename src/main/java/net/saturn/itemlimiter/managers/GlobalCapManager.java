@@ -0,0 +1,486 @@
+package net.saturn.itemlimiter.managers;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.container.ContainerResolverRegistry;
+import net.saturn.itemlimiter.jfr.CensusEvent;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.PrepareItemCraftEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-wide caps ("at most 3 dragon eggs in circulation"), next to the
+ * per-player limits. Circulation is what players hold: inventory, cursor and
+ * ender chest, including nested containers, for online players and the
+ * last known holdings of offline players.
+ *
+ * Each capped material has a LongAdder total, so checks are O(1). Totals are
+ * kept current from per-player deltas: inventory events mark a player dirty and
+ * only dirty players are recounted, once, at the end of the tick. Amounts
+ * allowed earlier in the same tick are held as reservations until then. A
+ * periodic census recounts every online player and rebuilds the totals to
+ * correct any drift (e.g. items given by commands).
+ */
+public class GlobalCapManager implements Listener {
+
+    private static final long MESSAGE_COOLDOWN_MS = 2000L;
+
+    private final ItemLimiter plugin;
+    private final ContainerResolverRegistry containerResolvers;
+    private final File file;
+
+    private final Map<Material, Integer> caps = new EnumMap<>(Material.class);
+    private final BitSet cappedBits = new BitSet();
+    private final Map<Material, LongAdder> totals = new ConcurrentHashMap<>();
+    private final Map<Material, LongAdder> reserved = new ConcurrentHashMap<>();
+    private final Map<UUID, EnumMap<Material, Integer>> held = new HashMap<>(); // Last counted holdings, online and offline
+    private final Set<UUID> dirty = new LinkedHashSet<>();
+    private final Map<UUID, Long> messageCooldowns = new HashMap<>();
+    private boolean reservedThisTick;
+    private BukkitRunnable censusTask;
+
+    public GlobalCapManager(ItemLimiter plugin, ContainerResolverRegistry containerResolvers) {
+        this.plugin = plugin;
+        this.containerResolvers = containerResolvers;
+        this.file = new File(plugin.getDataFolder(), "global-caps.yml");
+    }
+
+    public void load() {
+        FileConfiguration data = YamlConfiguration.loadConfiguration(file);
+
+        ConfigurationSection capSection = data.getConfigurationSection("caps");
+        if (capSection != null) {
+            for (String key : capSection.getKeys(false)) {
+                Material material = Material.matchMaterial(key);
+                if (material == null) {
+                    plugin.getLogger().warning("Invalid material in global-caps.yml: " + key);
+                    continue;
+                }
+                caps.put(material, capSection.getInt(key));
+            }
+        }
+
+        ConfigurationSection heldSection = data.getConfigurationSection("held");
+        if (heldSection != null) {
+            for (String uuid : heldSection.getKeys(false)) {
+                ConfigurationSection playerSection = heldSection.getConfigurationSection(uuid);
+                if (playerSection == null) continue;
+                EnumMap<Material, Integer> counts = new EnumMap<>(Material.class);
+                for (String key : playerSection.getKeys(false)) {
+                    Material material = Material.matchMaterial(key);
+                    if (material != null && caps.containsKey(material)) {
+                        counts.put(material, playerSection.getInt(key));
+                    }
+                }
+                if (!counts.isEmpty()) {
+                    held.put(UUID.fromString(uuid), counts);
+                }
+            }
+        }
+
+        rebuild();
+        if (!caps.isEmpty()) {
+            plugin.getLogger().info("Loaded " + caps.size() + " global caps");
+        }
+
+        long interval = Math.max(1L, plugin.getConfig().getLong("global-caps.census-minutes", 5L)) * 60L * 20L;
+        censusTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                census();
+                save();
+            }
+        };
+        censusTask.runTaskTimer(plugin, interval, interval);
+    }
+
+    public void save() {
+        FileConfiguration data = new YamlConfiguration();
+        for (Map.Entry<Material, Integer> entry : caps.entrySet()) {
+            data.set("caps." + entry.getKey().name(), entry.getValue());
+        }
+        for (Map.Entry<UUID, EnumMap<Material, Integer>> entry : held.entrySet()) {
+            for (Map.Entry<Material, Integer> count : entry.getValue().entrySet()) {
+                data.set("held." + entry.getKey() + "." + count.getKey().name(), count.getValue());
+            }
+        }
+        try {
+            data.save(file);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save global caps: " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        if (censusTask != null) {
+            censusTask.cancel();
+        }
+        // Count online players one last time, so their holdings count while they're offline
+        census();
+        save();
+    }
+
+    /* ============================================================
+       CAPS
+       ============================================================ */
+    public void setCap(Material material, int max) {
+        caps.put(material, max);
+        rebuild();
+        census();
+        save();
+    }
+
+    public boolean removeCap(Material material) {
+        if (caps.remove(material) == null) return false;
+        for (EnumMap<Material, Integer> counts : held.values()) {
+            counts.remove(material);
+        }
+        held.values().removeIf(Map::isEmpty);
+        rebuild();
+        save();
+        return true;
+    }
+
+    public Map<Material, Integer> getCaps() {
+        return Collections.unmodifiableMap(caps);
+    }
+
+    public boolean hasCaps() {
+        return !caps.isEmpty();
+    }
+
+    /**
+     * O(1), no allocation.
+     */
+    public boolean isCapped(Material material) {
+        return cappedBits.get(material.ordinal());
+    }
+
+    /**
+     * Items of the material currently in circulation, including reservations made this tick.
+     */
+    public long getTotal(Material material) {
+        LongAdder total = totals.get(material);
+        LongAdder pending = reserved.get(material);
+        return (total != null ? total.sum() : 0L) + (pending != null ? pending.sum() : 0L);
+    }
+
+    /**
+     * Whether bringing {@code amount} more items of the material into circulation would pass its cap. O(1).
+     */
+    public boolean wouldExceed(Material material, int amount) {
+        if (!isCapped(material)) return false;
+        return getTotal(material) + amount > caps.get(material);
+    }
+
+    /**
+     * Holds headroom for an allowed gain until the player is recounted at the end of the tick.
+     */
+    public void reserve(Material material, int amount) {
+        LongAdder pending = reserved.get(material);
+        if (pending != null) {
+            pending.add(amount);
+            reservedThisTick = true;
+        }
+    }
+
+    private void rebuild() {
+        cappedBits.clear();
+        totals.clear();
+        reserved.clear();
+        for (Material material : caps.keySet()) {
+            cappedBits.set(material.ordinal());
+            totals.put(material, new LongAdder());
+            reserved.put(material, new LongAdder());
+        }
+        for (EnumMap<Material, Integer> counts : held.values()) {
+            for (Map.Entry<Material, Integer> entry : counts.entrySet()) {
+                LongAdder total = totals.get(entry.getKey());
+                if (total != null) {
+                    total.add(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /* ============================================================
+       COUNTING
+       ============================================================ */
+    private void markDirty(HumanEntity entity) {
+        if (!caps.isEmpty() && entity instanceof Player) {
+            dirty.add(entity.getUniqueId());
+        }
+    }
+
+    /**
+     * Recounts a player's capped items and applies the difference to the totals.
+     */
+    private void recount(Player player, boolean fullCensus) {
+        CensusEvent event = new CensusEvent();
+        event.begin();
+
+        EnumMap<Material, Integer> counts = new EnumMap<>(Material.class);
+        tally(player.getInventory().getContents(), counts);
+        tally(player.getEnderChest().getContents(), counts);
+        tally(new ItemStack[]{player.getItemOnCursor()}, counts);
+
+        EnumMap<Material, Integer> previous = counts.isEmpty()
+                ? held.remove(player.getUniqueId())
+                : held.put(player.getUniqueId(), counts);
+        for (Material material : caps.keySet()) {
+            int delta = counts.getOrDefault(material, 0) - (previous != null ? previous.getOrDefault(material, 0) : 0);
+            if (delta != 0) {
+                totals.get(material).add(delta);
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.player = player.getName();
+            event.items = counts.values().stream().mapToInt(Integer::intValue).sum();
+            event.fullCensus = fullCensus;
+            event.commit();
+        }
+    }
+
+    private void tally(ItemStack[] items, Map<Material, Integer> counts) {
+        for (ItemStack item : items) {
+            if (item == null || item.getType() == Material.AIR) continue;
+            if (isCapped(item.getType())) {
+                counts.merge(item.getType(), item.getAmount(), Integer::sum);
+            }
+            tally(containerResolvers.getContents(item), counts);
+        }
+    }
+
+    /**
+     * Recounts every online player and rebuilds the totals from scratch.
+     */
+    public void census() {
+        if (caps.isEmpty()) return;
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            recount(player, true);
+        }
+        dirty.clear();
+        rebuild();
+    }
+
+    @EventHandler
+    public void onTickEnd(ServerTickEndEvent event) {
+        if (!dirty.isEmpty()) {
+            for (UUID uuid : dirty) {
+                Player player = plugin.getServer().getPlayer(uuid);
+                if (player != null && player.isOnline()) {
+                    recount(player, false);
+                }
+            }
+            dirty.clear();
+        }
+
+        // The recounts now include whatever was reserved (or the gain was cancelled after all)
+        if (reservedThisTick) {
+            for (LongAdder pending : reserved.values()) {
+                pending.reset();
+            }
+            reservedThisTick = false;
+        }
+    }
+
+    /* ============================================================
+       CHECKS (items entering circulation)
+       ============================================================ */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (caps.isEmpty() || !(event.getEntity() instanceof Player player)) return;
+
+        // Pickups are retried every tick while the player stands next to the item;
+        // a rejected entity is skipped until the player's inventory shrinks or it expires
+        PickupSuppressionCache pickupCache = plugin.getItemLimitManager().getPickupSuppressionCache();
+        if (pickupCache.isIgnored(player.getUniqueId(), event.getItem().getUniqueId())) {
+            event.setCancelled(true);
+            return;
+        }
+
+        if (!admitGain(player, event.getItem().getItemStack())) {
+            event.setCancelled(true);
+            pickupCache.ignore(player.getUniqueId(), event.getItem().getUniqueId());
+            return;
+        }
+        markDirty(player);
+    }
+
+    /**
+     * Taking a capped item out of a chest, crafting grid, furnace or merchant
+     * brings it into circulation. Moves out of the player's own ender chest don't.
+     */
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onTakeFromContainer(InventoryClickEvent event) {
+        if (caps.isEmpty() || !(event.getWhoClicked() instanceof Player player)) return;
+
+        // A double-click gathers matching stacks from the top inventory, whichever side was clicked
+        if (event.getAction() == InventoryAction.COLLECT_TO_CURSOR) {
+            Material material = event.getCursor() != null ? event.getCursor().getType() : Material.AIR;
+            if (!isCapped(material)) return;
+            int collected = InventoryClicks.collectedFromTop(event, player);
+            if (collected <= 0) return;
+            if (wouldExceed(material, collected)) {
+                event.setCancelled(true);
+                sendCapMessage(player, material);
+                return;
+            }
+            reserve(material, collected);
+            return;
+        }
+
+        Inventory clicked = event.getClickedInventory();
+        if (clicked == null || clicked == player.getInventory() || clicked.equals(player.getEnderChest())) return;
+
+        switch (event.getAction()) {
+            case PICKUP_ALL, PICKUP_HALF, PICKUP_SOME, PICKUP_ONE, MOVE_TO_OTHER_INVENTORY,
+                 HOTBAR_SWAP, HOTBAR_MOVE_AND_READD, SWAP_WITH_CURSOR -> {
+            }
+            default -> {
+                return;
+            }
+        }
+
+        ItemStack taken = event.getCurrentItem();
+        if (taken == null || taken.getType() == Material.AIR) return;
+
+        if (!admitGain(player, taken)) {
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * Checks every capped material the stack brings into circulation, its own type
+     * and anything nested in it (shulker boxes, bundles), counted the same way as
+     * {@link #tally}. Reserves all of them if none would pass its cap.
+     */
+    private boolean admitGain(Player player, ItemStack stack) {
+        if (!isCapped(stack.getType()) && !containerResolvers.mayContainItems(stack.getType())) return true;
+
+        EnumMap<Material, Integer> gained = new EnumMap<>(Material.class);
+        tally(new ItemStack[]{stack}, gained);
+        for (Map.Entry<Material, Integer> entry : gained.entrySet()) {
+            if (wouldExceed(entry.getKey(), entry.getValue())) {
+                sendCapMessage(player, entry.getKey());
+                return false;
+            }
+        }
+        for (Map.Entry<Material, Integer> entry : gained.entrySet()) {
+            reserve(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPrepareCraft(PrepareItemCraftEvent event) {
+        ItemStack result = event.getInventory().getResult();
+        if (result != null && wouldExceed(result.getType(), result.getAmount())) {
+            event.getInventory().setResult(null);
+        }
+    }
+
+    /* ============================================================
+       DELTA TRACKING
+       ============================================================ */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onClick(InventoryClickEvent event) {
+        markDirty(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrag(InventoryDragEvent event) {
+        markDirty(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onClose(InventoryCloseEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrop(PlayerDropItemEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlace(BlockPlaceEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onConsume(PlayerItemConsumeEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onDeath(PlayerDeathEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onJoin(PlayerJoinEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        // Their holdings stay in circulation while they're offline
+        if (!caps.isEmpty()) {
+            recount(event.getPlayer(), false);
+            dirty.remove(event.getPlayer().getUniqueId());
+        }
+        messageCooldowns.remove(event.getPlayer().getUniqueId());
+    }
+
+    private void sendCapMessage(Player player, Material material) {
+        long now = System.currentTimeMillis();
+        Long last = messageCooldowns.get(player.getUniqueId());
+        if (last != null && now - last < MESSAGE_COOLDOWN_MS) return;
+        messageCooldowns.put(player.getUniqueId(), now);
+
+        player.sendMessage(colorize(plugin.getConfig().getString("messages.item-global-cap",
+                        "&cThe server-wide cap for &e{item}&c ({cap}) has been reached!")
+                .replace("{item}", material.name().toLowerCase().replace('_', ' '))
+                .replace("{cap}", String.valueOf(caps.get(material)))));
+    }
+
+    private static String colorize(String msg) {
+        return net.md_5.bungee.api.ChatColor.translateAlternateColorCodes('&', msg);
+    }
+}
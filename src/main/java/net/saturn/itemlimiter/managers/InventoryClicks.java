@@ -0,0 +1,39 @@
+package net.saturn.itemlimiter.managers;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Click arithmetic shared by the listeners that count items entering a player's hands.
+ */
+final class InventoryClicks {
+
+    private InventoryClicks() {
+    }
+
+    /**
+     * Items a double-click (COLLECT_TO_CURSOR) pulls out of the top inventory: stacks
+     * similar to the cursor, up to what still fits on the cursor. Collecting from the
+     * player's own ender chest doesn't count, like any other move out of it.
+     */
+    static int collectedFromTop(InventoryClickEvent event, Player player) {
+        ItemStack cursor = event.getCursor();
+        if (cursor == null || cursor.getType() == Material.AIR) return 0;
+
+        Inventory top = event.getView().getTopInventory();
+        if (top.equals(player.getEnderChest())) return 0;
+
+        int room = cursor.getMaxStackSize() - cursor.getAmount();
+        int collected = 0;
+        for (ItemStack item : top.getContents()) {
+            if (collected >= room) break;
+            if (item != null && item.isSimilar(cursor)) {
+                collected += item.getAmount();
+            }
+        }
+        return Math.min(collected, Math.max(0, room));
+    }
+}
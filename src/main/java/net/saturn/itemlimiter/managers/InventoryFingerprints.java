@@ -0,0 +1,96 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.container.ContainerResolverRegistry;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Remembers, per player, a cheap fingerprint of the inventory together with the
+ * limit table version it was last verified clean against. A player who rejoins
+ * with the same fingerprint under the same limit version can't be over any limit,
+ * so the join scan is skipped.
+ *
+ * The fingerprint only covers what enforcement looks at: material and amount of
+ * every stack in the inventory and ender chest, including nested container contents.
+ * It uses material names, not enum hash codes, so it stays stable across restarts.
+ */
+public class InventoryFingerprints {
+
+    private static final String KEY = "fingerprint";
+
+    private final ItemLimitManager itemLimitManager;
+
+    public InventoryFingerprints(ItemLimitManager itemLimitManager) {
+        this.itemLimitManager = itemLimitManager;
+    }
+
+    /**
+     * Loads the fingerprint stored for the player without blocking on storage I/O.
+     */
+    public CompletableFuture<String> load(UUID player) {
+        return itemLimitManager.getStorage().loadPlayerDataAsync(player, KEY);
+    }
+
+    /**
+     * Returns true if the player's inventory is unchanged since it was last
+     * verified clean (as recorded in {@code stored}, see {@link #load}) and the
+     * limit table hasn't changed since either.
+     */
+    public boolean isVerified(Player player, String stored) {
+        if (stored == null) return false;
+
+        int sep = stored.indexOf(':');
+        if (sep < 0) return false;
+        try {
+            return Long.parseLong(stored.substring(0, sep)) == itemLimitManager.getVersion()
+                    && Long.parseUnsignedLong(stored.substring(sep + 1), 16) == fingerprint(player);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Stores the player's fingerprint if they currently hold no excess items,
+     * otherwise forgets it so the next join is scanned. Called on quit.
+     */
+    public void record(Player player) {
+        boolean clean = !itemLimitManager.hasLimitedItems()
+                || itemLimitManager.planExcessRemoval(player, itemLimitManager.getLimitedItems().keySet()).isEmpty();
+        itemLimitManager.getStorage().savePlayerData(player.getUniqueId(), KEY, clean
+                ? itemLimitManager.getVersion() + ":" + Long.toHexString(fingerprint(player))
+                : null);
+    }
+
+    long fingerprint(Player player) {
+        long hash = 1L;
+        for (ItemStack item : player.getInventory().getContents()) {
+            hash = mix(hash, item);
+        }
+        for (ItemStack item : player.getEnderChest().getContents()) {
+            hash = mix(hash, item);
+        }
+        return hash;
+    }
+
+    private long mix(long hash, ItemStack item) {
+        if (item == null || item.getType() == Material.AIR) {
+            return hash * 31;
+        }
+        hash = hash * 31 + item.getType().name().hashCode();
+        hash = hash * 31 + item.getAmount();
+
+        ContainerResolverRegistry resolvers = itemLimitManager.getContainerResolvers();
+        if (resolvers.mayContainItems(item.getType())) {
+            ItemStack[] contents = resolvers.getContents(item);
+            hash = hash * 31 + contents.length;
+            for (ItemStack contained : contents) {
+                hash = mix(hash, contained);
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,41 @@
+package net.saturn.itemlimiter.managers;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Coalesces inventory resyncs. Instead of calling Player#updateInventory on every
+ * enforcement path (each call resends the whole inventory), callers mark the
+ * player and the resync is sent once per player at the end of the tick.
+ */
+public class InventoryUpdateScheduler implements Listener {
+
+    private final Set<UUID> pending = new LinkedHashSet<>();
+
+    /**
+     * Requests a full inventory resync for the player at the end of this tick.
+     */
+    public void markDirty(Player player) {
+        pending.add(player.getUniqueId());
+    }
+
+    @EventHandler
+    public void onTickEnd(ServerTickEndEvent event) {
+        if (pending.isEmpty()) return;
+
+        for (UUID uuid : pending) {
+            Player player = Bukkit.getPlayer(uuid);
+            if (player != null && player.isOnline()) {
+                player.updateInventory();
+            }
+        }
+        pending.clear();
+    }
+}
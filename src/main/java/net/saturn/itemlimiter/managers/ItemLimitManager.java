@@ -1,78 +1,95 @@
 package net.saturn.itemlimiter.managers;
 
 import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.api.ItemLimitEnforceEvent;
+import net.saturn.itemlimiter.container.ContainerItemResolver;
+import net.saturn.itemlimiter.container.ContainerResolverRegistry;
+import net.saturn.itemlimiter.jfr.ExcessRemovalEvent;
+import net.saturn.itemlimiter.storage.LimitStorage;
+import net.saturn.itemlimiter.storage.SqliteLimitStorage;
+import net.saturn.itemlimiter.storage.YamlLimitStorage;
+import net.saturn.itemlimiter.sync.LimitDelta;
 import org.bukkit.Material;
-import org.bukkit.block.ShulkerBox;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.BlockStateMeta;
-import org.bukkit.inventory.meta.BundleMeta;
+import org.bukkit.inventory.PlayerInventory;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class ItemLimitManager {
 
     private final ItemLimiter plugin;
     private final Map<Material, Integer> limitedItems; // Material -> max quantity (0 = completely banned)
-    private File dataFile;
-    private FileConfiguration data;
+    private final EnderChestCache enderChestCache;
+    private final ContainerResolverRegistry containerResolvers = new ContainerResolverRegistry();
+    private final PickupSuppressionCache pickupSuppressionCache = new PickupSuppressionCache();
+    private final InventoryFingerprints inventoryFingerprints = new InventoryFingerprints(this);
+    private final BitSet limitedBits = new BitSet(); // Material ordinal -> limited (O(1) hot-path check)
+    private final BitSet bannedBits = new BitSet();  // Material ordinal -> limit 0
+    private long version; // Bumped on every change to the limit table, persisted
+    private final boolean blockLimitedAutomation;
+    private LimitStorage storage;
 
     public ItemLimitManager(ItemLimiter plugin) {
         this.plugin = plugin;
         this.limitedItems = new HashMap<>();
-        this.dataFile = new File(plugin.getDataFolder(), "limited-items.yml");
+        this.enderChestCache = new EnderChestCache(this, plugin.getMetricsManager());
+        this.blockLimitedAutomation = plugin.getConfig().getBoolean("automation.block-limited-items", true);
     }
 
     public void load() {
-        if (!dataFile.exists()) {
-            try {
-                dataFile.getParentFile().mkdirs();
-                dataFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().severe("Could not create limited-items.yml: " + e.getMessage());
-            }
+        storage = createStorage();
+
+        // Load limited items
+        limitedItems.putAll(storage.loadLimits());
+        if (!limitedItems.isEmpty()) {
+            plugin.getLogger().info("Loaded " + limitedItems.size() + " limited items");
         }
 
-        data = YamlConfiguration.loadConfiguration(dataFile);
+        version = storage.loadVersion();
+        rebuildLookups();
+    }
 
-        // Load limited items
-        if (data.contains("limited-items")) {
-            for (String key : data.getConfigurationSection("limited-items").getKeys(false)) {
-                try {
-                    Material material = Material.valueOf(key.toUpperCase());
-                    int limit = data.getInt("limited-items." + key);
-                    limitedItems.put(material, limit);
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().warning("Invalid material in limited-items.yml: " + key);
-                }
+    private LimitStorage createStorage() {
+        String type = plugin.getConfig().getString("storage.type", "yaml");
+        if (type.equalsIgnoreCase("sqlite")) {
+            LimitStorage sqlite = new SqliteLimitStorage(plugin,
+                    new File(plugin.getDataFolder(), plugin.getConfig().getString("storage.sqlite.file", "data.db")),
+                    plugin.getConfig().getInt("storage.sqlite.pool-size", 2));
+            if (sqlite.open()) {
+                return sqlite;
             }
-            plugin.getLogger().info("Loaded " + limitedItems.size() + " limited items");
+            plugin.getLogger().warning("Falling back to YAML storage");
+        } else if (!type.equalsIgnoreCase("yaml")) {
+            plugin.getLogger().warning("Unknown storage type '" + type + "', using YAML storage");
         }
+
+        LimitStorage yaml = new YamlLimitStorage(plugin);
+        yaml.open();
+        return yaml;
     }
 
     public void save() {
-        try {
-            // Clear existing data
-            data.set("limited-items", null);
-
-            // Save limited items with their limits
-            if (!limitedItems.isEmpty()) {
-                for (Map.Entry<Material, Integer> entry : limitedItems.entrySet()) {
-                    data.set("limited-items." + entry.getKey().name(), entry.getValue());
-                }
-            }
+        storage.saveLimits(limitedItems, version);
+    }
 
-            data.save(dataFile);
-            plugin.getLogger().info("Saved limited items");
-        } catch (IOException e) {
-            plugin.getLogger().severe("Could not save limited items: " + e.getMessage());
+    /**
+     * Flushes pending writes and closes the storage backend.
+     */
+    public void close() {
+        if (storage != null) {
+            storage.close();
         }
     }
 
+    public LimitStorage getStorage() {
+        return storage;
+    }
+
     public boolean addItem(Material material, int maxQuantity) {
         if (material == null || material == Material.AIR) {
             return false;
@@ -82,29 +99,109 @@ public class ItemLimitManager {
             return false;
         }
 
-        limitedItems.put(material, maxQuantity);
+        putLimit(material, maxQuantity);
         save();
+        publish(syncManager -> LimitDelta.add(syncManager.getNodeId(), material, maxQuantity));
         return true;
     }
 
     public boolean removeItem(Material material) {
         boolean removed = limitedItems.remove(material) != null;
         if (removed) {
+            onLimitsChanged();
             save();
+            publish(syncManager -> LimitDelta.remove(syncManager.getNodeId(), material));
         }
         return removed;
     }
 
+    private void putLimit(Material material, int maxQuantity) {
+        if (limitedItems.put(material, maxQuantity) == null) {
+            // New material - cached ender chest counts don't track it yet
+            enderChestCache.clear();
+        }
+        onLimitsChanged();
+    }
+
+    /**
+     * Applies a limit change received from another server (or our own, echoed back
+     * by the sync transport) without saving or publishing it again.
+     * Returns true if the limit table changed.
+     */
+    public boolean applyDelta(LimitDelta delta) {
+        switch (delta.operation()) {
+            case ADD:
+                if (delta.material() == null || Objects.equals(limitedItems.get(delta.material()), delta.limit())) {
+                    return false;
+                }
+                putLimit(delta.material(), delta.limit());
+                return true;
+            case REMOVE:
+                if (delta.material() == null || limitedItems.remove(delta.material()) == null) {
+                    return false;
+                }
+                onLimitsChanged();
+                return true;
+            case CLEAR:
+                if (limitedItems.isEmpty()) {
+                    return false;
+                }
+                limitedItems.clear();
+                enderChestCache.clear();
+                onLimitsChanged();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void publish(Function<SyncManager, LimitDelta> delta) {
+        SyncManager syncManager = plugin.getSyncManager();
+        if (syncManager != null && syncManager.isEnabled()) {
+            syncManager.publish(delta.apply(syncManager));
+        }
+    }
+
+    private void onLimitsChanged() {
+        version++;
+        rebuildLookups();
+        pickupSuppressionCache.clear();
+    }
+
+    private void rebuildLookups() {
+        limitedBits.clear();
+        bannedBits.clear();
+        for (Map.Entry<Material, Integer> entry : limitedItems.entrySet()) {
+            limitedBits.set(entry.getKey().ordinal());
+            if (entry.getValue() == 0) {
+                bannedBits.set(entry.getKey().ordinal());
+            }
+        }
+        plugin.getMetricsManager().setLimitedMaterials(limitedItems.size());
+    }
+
+    /**
+     * Version of the limit table. Changes whenever a limit is added, changed or removed
+     * and survives restarts, so it can be used to tell if a cached verification is stale.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     public boolean isItemLimited(Material material) {
-        return limitedItems.containsKey(material);
+        return material != null && limitedBits.get(material.ordinal());
     }
 
     public boolean isItemLimited(ItemStack item) {
-        return item != null && limitedItems.containsKey(item.getType());
+        return item != null && limitedBits.get(item.getType().ordinal());
     }
 
     public boolean isItemBanned(Material material) {
-        return limitedItems.containsKey(material) && limitedItems.get(material) == 0;
+        return material != null && bannedBits.get(material.ordinal());
+    }
+
+    public boolean hasBannedItems() {
+        return !bannedBits.isEmpty();
     }
 
     public boolean isItemBanned(ItemStack item) {
@@ -136,18 +233,47 @@ public class ItemLimitManager {
 
     public void clearItems() {
         limitedItems.clear();
+        enderChestCache.clear();
+        onLimitsChanged();
         save();
+        publish(syncManager -> LimitDelta.clear(syncManager.getNodeId()));
     }
 
     public boolean hasLimitedItems() {
         return !limitedItems.isEmpty();
     }
 
+    /**
+     * Whether hoppers, droppers, hopper minecarts and crafters may not move or
+     * produce this material. Banned items are always blocked; limited items only
+     * when automation.block-limited-items is enabled. O(1), no allocation.
+     */
+    public boolean isBlockedForAutomation(Material material) {
+        return blockLimitedAutomation ? limitedBits.get(material.ordinal()) : bannedBits.get(material.ordinal());
+    }
+
+    public EnderChestCache getEnderChestCache() {
+        return enderChestCache;
+    }
+
+    public ContainerResolverRegistry getContainerResolvers() {
+        return containerResolvers;
+    }
+
+    public PickupSuppressionCache getPickupSuppressionCache() {
+        return pickupSuppressionCache;
+    }
+
+    public InventoryFingerprints getInventoryFingerprints() {
+        return inventoryFingerprints;
+    }
+
     /**
      * Counts how many of a specific material a player has across their entire
-     * inventory, including items nested inside bundles and shulker boxes.
+     * inventory and ender chest, including items nested inside bundles and shulker boxes.
+     * The ender chest part is served from {@link EnderChestCache}.
      */
-    public int countItemInInventory(org.bukkit.entity.Player player, Material material) {
+    public int countItemInInventory(Player player, Material material) {
         int count = 0;
 
         // Count in main inventory (slots 0-35: hotbar + main inventory)
@@ -163,12 +289,129 @@ public class ItemLimitManager {
         // Count in off-hand
         count += countItemInStack(player.getInventory().getItemInOffHand(), material);
 
+        // Count in ender chest (cached)
+        count += enderChestCache.getCount(player, material);
+
         return count;
     }
 
+    /**
+     * Bounded variant of {@link #countItemInInventory(org.bukkit.entity.Player, Material)}.
+     * Returns the exact count while it is below {@code max}, or {@code max} as soon as
+     * the threshold is reached. Top-level slots and the cached ender chest count are
+     * checked first; bundles and shulker boxes are only opened while still under {@code max}.
+     * Passing the limit as {@code max} is enough for any "at limit / how many fit" check.
+     */
+    public int countItemInInventory(Player player, Material material, int max) {
+        int count = enderChestCache.getCount(player, material);
+        if (count >= max) return max;
+
+        PlayerInventory inventory = player.getInventory();
+        ItemStack[] storage = inventory.getStorageContents();
+        ItemStack[] armor = inventory.getArmorContents();
+        ItemStack offHand = inventory.getItemInOffHand();
+
+        // Pass 1: top-level stacks only
+        for (ItemStack item : storage) {
+            if (item != null && item.getType() == material) {
+                count += item.getAmount();
+                if (count >= max) return max;
+            }
+        }
+        for (ItemStack item : armor) {
+            if (item != null && item.getType() == material) {
+                count += item.getAmount();
+                if (count >= max) return max;
+            }
+        }
+        if (offHand.getType() == material) {
+            count += offHand.getAmount();
+            if (count >= max) return max;
+        }
+
+        // Pass 2: open containers while still under the threshold
+        for (ItemStack item : storage) {
+            count += countNestedItems(item, material);
+            if (count >= max) return max;
+        }
+        for (ItemStack item : armor) {
+            count += countNestedItems(item, material);
+            if (count >= max) return max;
+        }
+        count += countNestedItems(offHand, material);
+
+        return Math.min(count, max);
+    }
+
+    /**
+     * How many more items of the material the player can hold before any are
+     * removed: 0 if banned or at the limit, Integer.MAX_VALUE if it isn't limited.
+     */
+    public int getHeadroom(Player player, Material material) {
+        Integer limit = limitedItems.get(material);
+        if (limit == null) return Integer.MAX_VALUE;
+        if (limit == 0) return 0;
+        return limit - countItemInInventory(player, material, limit);
+    }
+
+    /**
+     * Writes the player's count of {@code materials[i]} into {@code counts[i]}, in one
+     * pass over the inventory. Ender chest counts of limited materials come from
+     * {@link EnderChestCache}; the ender chest is only scanned for unlimited ones.
+     */
+    public void countItems(Player player, Material[] materials, int[] counts) {
+        Arrays.fill(counts, 0, materials.length, 0);
+        for (ItemStack item : player.getInventory().getContents()) {
+            addCounts(item, materials, counts, false);
+        }
+
+        boolean scanEnderChest = false;
+        for (int i = 0; i < materials.length; i++) {
+            if (isItemLimited(materials[i])) {
+                counts[i] += enderChestCache.getCount(player, materials[i]);
+            } else {
+                scanEnderChest = true;
+            }
+        }
+        if (scanEnderChest) {
+            for (ItemStack item : player.getEnderChest().getContents()) {
+                addCounts(item, materials, counts, true);
+            }
+        }
+    }
+
+    private void addCounts(ItemStack item, Material[] materials, int[] counts, boolean unlimitedOnly) {
+        if (item == null || item.getType() == Material.AIR) return;
+
+        for (int i = 0; i < materials.length; i++) {
+            if (materials[i] == item.getType() && !(unlimitedOnly && isItemLimited(materials[i]))) {
+                counts[i] += item.getAmount();
+            }
+        }
+        for (ItemStack contained : containerResolvers.getContents(item)) {
+            addCounts(contained, materials, counts, unlimitedOnly);
+        }
+    }
+
+    /**
+     * Adds the amounts of all limited materials in an ItemStack (including
+     * nested container contents) to the given counts map.
+     */
+    void tallyLimitedItems(ItemStack item, Map<Material, Integer> counts) {
+        if (item == null || item.getType() == Material.AIR) return;
+
+        if (isItemLimited(item.getType())) {
+            counts.merge(item.getType(), item.getAmount(), Integer::sum);
+        }
+
+        for (ItemStack contained : containerResolvers.getContents(item)) {
+            tallyLimitedItems(contained, counts);
+        }
+    }
+
     /**
      * Recursively counts how many of a specific material are in an ItemStack,
-     * looking inside bundles and shulker boxes.
+     * looking inside shulker boxes, bundles and other registered containers.
      */
     private int countItemInStack(ItemStack item, Material material) {
         if (item == null || item.getType() == Material.AIR) return 0;
@@ -180,160 +423,309 @@ public class ItemLimitManager {
             count += item.getAmount();
         }
 
-        // Recurse into bundles
-        if (item.getType() == Material.BUNDLE && item.getItemMeta() instanceof BundleMeta bundleMeta) {
-            if (bundleMeta.hasItems()) {
-                for (ItemStack bundled : bundleMeta.getItems()) {
-                    count += countItemInStack(bundled, material);
-                }
-            }
-        }
+        return count + countNestedItems(item, material);
+    }
 
-        // Recurse into shulker boxes
-        if (isShulkerBox(item.getType()) && item.getItemMeta() instanceof BlockStateMeta blockMeta) {
-            if (blockMeta.getBlockState() instanceof ShulkerBox shulkerBox) {
-                for (ItemStack contained : shulkerBox.getInventory().getContents()) {
-                    count += countItemInStack(contained, material);
-                }
-            }
-        }
+    /**
+     * Counts how many of a specific material are stored inside a container item
+     * (shulker box, bundle or any registered {@link ContainerItemResolver}),
+     * not counting the stack itself.
+     */
+    private int countNestedItems(ItemStack item, Material material) {
+        if (item == null) return 0;
 
+        int count = 0;
+        for (ItemStack contained : containerResolvers.getContents(item)) {
+            count += countItemInStack(contained, material);
+        }
         return count;
     }
 
-    private boolean isShulkerBox(Material material) {
-        return material == Material.SHULKER_BOX || material.name().endsWith("_SHULKER_BOX");
-    }
-
     /**
      * Drops excess items from player's inventory to enforce limits.
      * Strips items from bundles and shulker boxes as needed.
      * Returns the number of items dropped.
      */
-    public int dropExcess(org.bukkit.entity.Player player, Material material) {
-        Integer limit = limitedItems.get(material);
-        if (limit == null) {
+    public int dropExcess(Player player, Material material) {
+        if (!isItemLimited(material)) {
             return 0;
         }
+        return applyExcessRemoval(player, planExcessRemoval(player, List.of(material)))
+                .getOrDefault(material, 0);
+    }
 
-        int currentCount = countItemInInventory(player, material);
+    /**
+     * Drops excess items of every limited material in one plan and one inventory write.
+     * Returns the number of items dropped per material.
+     */
+    public Map<Material, Integer> dropAllExcess(Player player) {
+        if (limitedItems.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return applyExcessRemoval(player, planExcessRemoval(player, limitedItems.keySet()));
+    }
 
-        if (currentCount <= limit) {
-            return 0; // Within limit
+    /**
+     * Plans which stacks to take excess items from, without changing anything.
+     * Per material the order is: main inventory slots, armor, off-hand, then the
+     * ender chest; in each slot the stack itself, or the items inside it at any
+     * nesting depth, matching how {@link #tallyLimitedItems} counts them.
+     */
+    public ExcessRemovalPlan planExcessRemoval(Player player, Collection<Material> materials) {
+        ExcessRemovalPlan plan = new ExcessRemovalPlan();
+        ItemStack[] contents = player.getInventory().getContents();
+
+        // Count every limited material in one pass over the snapshot
+        EnumMap<Material, Integer> counts = new EnumMap<>(Material.class);
+        for (ItemStack item : contents) {
+            tallyLimitedItems(item, counts);
         }
 
-        int toDrop = currentCount - limit;
-        int dropped = 0;
+        ItemStack[] ender = null;
+        for (Material material : materials) {
+            Integer limit = limitedItems.get(material);
+            if (limit == null) continue;
 
-        // Drop from main inventory (slots 0-35)
-        for (int i = 0; i < 36 && dropped < toDrop; i++) {
-            ItemStack item = player.getInventory().getItem(i);
-            if (item == null || item.getType() == Material.AIR) continue;
+            int enderCount = enderChestCache.getCount(player, material);
+            int toDrop = counts.getOrDefault(material, 0) + enderCount - limit;
+            if (toDrop <= 0) continue;
 
-            // Drop directly matching items first
-            if (item.getType() == material) {
-                int amount = item.getAmount();
-                int canDrop = Math.min(amount, toDrop - dropped);
-                if (canDrop >= amount) {
-                    player.getInventory().setItem(i, null);
-                    player.getWorld().dropItemNaturally(player.getLocation(), item);
-                } else {
-                    ItemStack dropStack = item.clone();
-                    dropStack.setAmount(canDrop);
-                    item.setAmount(amount - canDrop);
-                    player.getWorld().dropItemNaturally(player.getLocation(), dropStack);
-                }
-                dropped += canDrop;
-                continue;
+            // Main inventory (0-35), then armor (36-39) and off-hand (40)
+            for (int i = 0; i < contents.length && toDrop > 0; i++) {
+                toDrop = planFrom(contents[i], material, toDrop, false, i, new int[0], plan);
             }
 
-            // Strip excess from bundles
-            if (item.getType() == Material.BUNDLE && item.getItemMeta() instanceof BundleMeta bundleMeta) {
-                if (!bundleMeta.hasItems()) continue;
-                List<ItemStack> bundleContents = new ArrayList<>(bundleMeta.getItems());
-                for (int j = bundleContents.size() - 1; j >= 0 && dropped < toDrop; j--) {
-                    ItemStack bundled = bundleContents.get(j);
-                    if (bundled == null || bundled.getType() != material) continue;
-                    int amount = bundled.getAmount();
-                    int canDrop = Math.min(amount, toDrop - dropped);
-                    if (canDrop >= amount) {
-                        bundleContents.remove(j);
-                    } else {
-                        bundled.setAmount(amount - canDrop);
-                        bundleContents.set(j, bundled);
-                    }
-                    player.getWorld().dropItemNaturally(player.getLocation(), new ItemStack(material, canDrop));
-                    dropped += canDrop;
+            // Ender chest as a last resort
+            if (toDrop > 0 && enderCount > 0) {
+                if (ender == null) {
+                    ender = player.getEnderChest().getContents();
                 }
-                bundleMeta.setItems(bundleContents);
-                item.setItemMeta(bundleMeta);
-                player.getInventory().setItem(i, item);
+                for (int i = 0; i < ender.length && toDrop > 0; i++) {
+                    toDrop = planFrom(ender[i], material, toDrop, true, i, new int[0], plan);
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Plans removals from a stack: the stack itself if it is the material, otherwise
+     * the items nested in it, recursively. Returns how many items are still to drop.
+     */
+    private int planFrom(ItemStack item, Material material, int toDrop, boolean enderChest,
+                         int slot, int[] path, ExcessRemovalPlan plan) {
+        if (item == null || item.getType() == Material.AIR) return toDrop;
+
+        if (item.getType() == material) {
+            int amount = Math.min(item.getAmount(), toDrop);
+            plan.add(new ExcessRemovalPlan.Removal(material, enderChest, slot, path, amount));
+            return toDrop - amount;
+        }
+
+        ItemStack[] nested = containerResolvers.getContents(item);
+        for (int j = 0; j < nested.length && toDrop > 0; j++) {
+            int[] nestedPath = Arrays.copyOf(path, path.length + 1);
+            nestedPath[path.length] = j;
+            toDrop = planFrom(nested[j], material, toDrop, enderChest, slot, nestedPath, plan);
+        }
+        return toDrop;
+    }
+
+    /**
+     * Commits a plan made in the same tick: fires an {@link ItemLimitEnforceEvent}
+     * per material and skips the cancelled ones, builds the new contents from a snapshot,
+     * writes the player inventory (and the ender chest, if touched) back in one
+     * setContents call each, then drops the removed items.
+     * Returns the number of items dropped per material.
+     */
+    public Map<Material, Integer> applyExcessRemoval(Player player, ExcessRemovalPlan plan) {
+        if (plan.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // Let other plugins veto removal per material
+        for (Map.Entry<Material, Integer> entry : new ArrayList<>(plan.getTotals().entrySet())) {
+            ItemLimitEnforceEvent event = new ItemLimitEnforceEvent(player, entry.getKey(),
+                    limitedItems.getOrDefault(entry.getKey(), 0), entry.getValue());
+            plugin.getServer().getPluginManager().callEvent(event);
+            if (event.isCancelled()) {
+                plan.remove(entry.getKey());
+            }
+        }
+        if (plan.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        ExcessRemovalEvent jfrEvent = new ExcessRemovalEvent();
+        jfrEvent.begin();
+
+        ItemStack[] contents = copyOf(player.getInventory().getContents());
+        ItemStack[] ender = plan.touchesEnderChest() ? copyOf(player.getEnderChest().getContents()) : null;
+        List<ItemStack> drops = new ArrayList<>();
+
+        // Nested removals first, so a container that is itself dropped leaves with updated contents
+        Map<ItemStack, List<ExcessRemovalPlan.Removal>> nestedEdits = new IdentityHashMap<>();
+        for (ExcessRemovalPlan.Removal removal : plan.getRemovals()) {
+            if (!removal.isNested()) continue;
+            ItemStack container = (removal.enderChest() ? ender : contents)[removal.slot()];
+            nestedEdits.computeIfAbsent(container, key -> new ArrayList<>()).add(removal);
+        }
+        for (Map.Entry<ItemStack, List<ExcessRemovalPlan.Removal>> entry : nestedEdits.entrySet()) {
+            takeNested(entry.getKey(), entry.getValue(), 0, drops);
+        }
+
+        for (ExcessRemovalPlan.Removal removal : plan.getRemovals()) {
+            if (removal.isNested()) continue;
+            takeFrom((removal.enderChest() ? ender : contents)[removal.slot()], removal, drops);
+        }
+
+        player.getInventory().setContents(clearEmpty(contents));
+        if (ender != null) {
+            player.getEnderChest().setContents(clearEmpty(ender));
+            enderChestCache.invalidate(player);
+        }
+        pickupSuppressionCache.clearAll(player.getUniqueId());
+
+        Map<Material, Integer> dropped = new EnumMap<>(Material.class);
+        for (ItemStack drop : drops) {
+            player.getWorld().dropItemNaturally(player.getLocation(), drop);
+            dropped.merge(drop.getType(), drop.getAmount(), Integer::sum);
+        }
+        for (Map.Entry<Material, Integer> entry : dropped.entrySet()) {
+            plugin.getMetricsManager().recordAction(AuditLogManager.Action.EXCESS_DROPPED, entry.getKey(), entry.getValue());
+            plugin.getEnforcementAnalytics().record(player, entry.getKey());
+            plugin.getAuditLogManager().log(player, AuditLogManager.Action.EXCESS_DROPPED, entry.getKey(), entry.getValue());
+        }
+
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.player = player.getName();
+            jfrEvent.materials = dropped.keySet().toString();
+            jfrEvent.itemsDropped = drops.stream().mapToInt(ItemStack::getAmount).sum();
+            jfrEvent.removals = plan.getRemovals().size();
+            jfrEvent.enderChest = ender != null;
+            jfrEvent.commit();
+        }
+        return dropped;
+    }
+
+    /**
+     * Deletes banned items from a block inventory, including items nested in
+     * shulker boxes and bundles stored there. The inventory is written back once,
+     * only if something was removed. Returns the removed amounts per material.
+     */
+    public Map<Material, Integer> purgeBanned(Inventory inventory) {
+        Map<Material, Integer> removed = new EnumMap<>(Material.class);
+        ItemStack[] contents = inventory.getContents();
+        boolean changed = false;
+
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack item = contents[i];
+            if (item == null || item.getType() == Material.AIR) continue;
+
+            if (isItemBanned(item.getType())) {
+                removed.merge(item.getType(), item.getAmount(), Integer::sum);
+                contents[i] = null;
+                changed = true;
                 continue;
             }
 
-            // Strip excess from shulker boxes
-            if (isShulkerBox(item.getType()) && item.getItemMeta() instanceof BlockStateMeta blockMeta) {
-                if (!(blockMeta.getBlockState() instanceof ShulkerBox shulkerBox)) continue;
-                ItemStack[] contents = shulkerBox.getInventory().getContents();
-                for (int j = 0; j < contents.length && dropped < toDrop; j++) {
-                    if (contents[j] == null || contents[j].getType() != material) continue;
-                    int amount = contents[j].getAmount();
-                    int canDrop = Math.min(amount, toDrop - dropped);
-                    if (canDrop >= amount) {
-                        contents[j] = null;
-                    } else {
-                        contents[j].setAmount(amount - canDrop);
-                    }
-                    player.getWorld().dropItemNaturally(player.getLocation(), new ItemStack(material, canDrop));
-                    dropped += canDrop;
-                }
-                shulkerBox.getInventory().setContents(contents);
-                blockMeta.setBlockState(shulkerBox);
-                item.setItemMeta(blockMeta);
-                player.getInventory().setItem(i, item);
+            ItemStack stripped = stripBanned(item, removed);
+            if (stripped != null) {
+                contents[i] = stripped;
+                changed = true;
             }
         }
 
-        // Drop from armor slots if needed
-        if (dropped < toDrop) {
-            ItemStack[] armor = player.getInventory().getArmorContents();
-            for (int i = 0; i < armor.length && dropped < toDrop; i++) {
-                if (armor[i] == null || armor[i].getType() != material) continue;
-                int amount = armor[i].getAmount();
-                int canDrop = Math.min(amount, toDrop - dropped);
-                if (canDrop >= amount) {
-                    player.getWorld().dropItemNaturally(player.getLocation(), armor[i]);
-                    armor[i] = null;
-                } else {
-                    ItemStack dropStack = armor[i].clone();
-                    dropStack.setAmount(canDrop);
-                    armor[i].setAmount(amount - canDrop);
-                    player.getWorld().dropItemNaturally(player.getLocation(), dropStack);
-                }
-                dropped += canDrop;
+        if (changed) {
+            inventory.setContents(contents);
+        }
+        return removed;
+    }
+
+    /**
+     * Returns a copy of the container item without banned nested items, or null if it held none.
+     */
+    private ItemStack stripBanned(ItemStack item, Map<Material, Integer> removed) {
+        ContainerItemResolver resolver = containerResolvers.resolve(item);
+        if (resolver == null) return null;
+
+        ItemStack[] nested = resolver.getContents(item);
+        boolean changed = false;
+        for (int i = 0; i < nested.length; i++) {
+            ItemStack contained = nested[i];
+            if (contained == null || contained.getType() == Material.AIR) continue;
+
+            if (isItemBanned(contained.getType())) {
+                removed.merge(contained.getType(), contained.getAmount(), Integer::sum);
+                nested[i] = null;
+                changed = true;
+                continue;
             }
-            player.getInventory().setArmorContents(armor);
-        }
-
-        // Drop from off-hand if needed
-        if (dropped < toDrop) {
-            ItemStack offHand = player.getInventory().getItemInOffHand();
-            if (offHand != null && offHand.getType() == material) {
-                int amount = offHand.getAmount();
-                int canDrop = Math.min(amount, toDrop - dropped);
-                if (canDrop >= amount) {
-                    player.getWorld().dropItemNaturally(player.getLocation(), offHand);
-                    player.getInventory().setItemInOffHand(null);
-                } else {
-                    ItemStack dropStack = offHand.clone();
-                    dropStack.setAmount(canDrop);
-                    offHand.setAmount(amount - canDrop);
-                    player.getWorld().dropItemNaturally(player.getLocation(), dropStack);
-                }
-                dropped += canDrop;
+
+            ItemStack stripped = stripBanned(contained, removed);
+            if (stripped != null) {
+                nested[i] = stripped;
+                changed = true;
             }
         }
 
-        return dropped;
+        if (!changed) return null;
+        ItemStack copy = item.clone();
+        resolver.setContents(copy, nested);
+        return copy;
+    }
+
+    /**
+     * Applies nested removals to a (copied) container stack: copies its contents,
+     * takes the items at this depth, recurses into deeper containers and writes
+     * the modified contents back into the stack.
+     */
+    private void takeNested(ItemStack container, List<ExcessRemovalPlan.Removal> removals, int depth,
+                            List<ItemStack> drops) {
+        ContainerItemResolver resolver = containerResolvers.resolve(container);
+        if (resolver == null) return;
+
+        ItemStack[] nested = copyOf(resolver.getContents(container));
+        Map<Integer, List<ExcessRemovalPlan.Removal>> deeper = new HashMap<>();
+        for (ExcessRemovalPlan.Removal removal : removals) {
+            int index = removal.path()[depth];
+            if (index >= nested.length) continue;
+            if (removal.path().length == depth + 1) {
+                takeFrom(nested[index], removal, drops);
+            } else {
+                deeper.computeIfAbsent(index, key -> new ArrayList<>()).add(removal);
+            }
+        }
+        for (Map.Entry<Integer, List<ExcessRemovalPlan.Removal>> entry : deeper.entrySet()) {
+            takeNested(nested[entry.getKey()], entry.getValue(), depth + 1, drops);
+        }
+        resolver.setContents(container, clearEmpty(nested));
+    }
+
+    private void takeFrom(ItemStack stack, ExcessRemovalPlan.Removal removal, List<ItemStack> drops) {
+        if (stack == null || stack.getType() != removal.material()) return;
+
+        int amount = Math.min(removal.amount(), stack.getAmount());
+        ItemStack drop = stack.clone();
+        drop.setAmount(amount);
+        drops.add(drop);
+        stack.setAmount(stack.getAmount() - amount);
+    }
+
+    private ItemStack[] copyOf(ItemStack[] items) {
+        ItemStack[] copy = new ItemStack[items.length];
+        for (int i = 0; i < items.length; i++) {
+            copy[i] = items[i] != null ? items[i].clone() : null;
+        }
+        return copy;
+    }
+
+    private ItemStack[] clearEmpty(ItemStack[] items) {
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] != null && items[i].getAmount() <= 0) {
+                items[i] = null;
+            }
+        }
+        return items;
     }
-}
\ No newline at end of file
+}
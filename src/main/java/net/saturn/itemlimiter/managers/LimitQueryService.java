@@ -0,0 +1,65 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.api.ItemLimiterService;
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+
+/**
+ * The {@link ItemLimiterService} registered for other plugins; answers from
+ * {@link ItemLimitManager}'s lookup tables and cached counts.
+ */
+public class LimitQueryService implements ItemLimiterService {
+
+    private final ItemLimitManager itemLimitManager;
+
+    public LimitQueryService(ItemLimitManager itemLimitManager) {
+        this.itemLimitManager = itemLimitManager;
+    }
+
+    @Override
+    public boolean isLimited(Material material) {
+        return itemLimitManager.isItemLimited(material);
+    }
+
+    @Override
+    public boolean isBanned(Material material) {
+        return itemLimitManager.isItemBanned(material);
+    }
+
+    @Override
+    public int getLimit(Material material) {
+        Integer limit = itemLimitManager.getLimit(material);
+        return limit != null ? limit : -1;
+    }
+
+    @Override
+    public int getHeadroom(Player player, Material material) {
+        return itemLimitManager.getHeadroom(player, material);
+    }
+
+    @Override
+    public void getHeadroom(Player player, Material[] materials, int[] headroom) {
+        checkLength(materials, headroom);
+        for (int i = 0; i < materials.length; i++) {
+            headroom[i] = itemLimitManager.getHeadroom(player, materials[i]);
+        }
+    }
+
+    @Override
+    public void countItems(Player player, Material[] materials, int[] counts) {
+        checkLength(materials, counts);
+        itemLimitManager.countItems(player, materials, counts);
+    }
+
+    @Override
+    public long getLimitVersion() {
+        return itemLimitManager.getVersion();
+    }
+
+    private static void checkLength(Material[] materials, int[] out) {
+        if (out.length < materials.length) {
+            throw new IllegalArgumentException("Output array has " + out.length + " slots for "
+                    + materials.length + " materials");
+        }
+    }
+}
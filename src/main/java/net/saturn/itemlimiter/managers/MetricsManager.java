@@ -0,0 +1,208 @@
+package net.saturn.itemlimiter.managers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Material;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plugin metrics kept in lock-free accumulators, optionally exported in the
+ * Prometheus text format on a loopback-only HTTP endpoint served by virtual
+ * threads. Scrapes only read the accumulators and never touch the main thread.
+ */
+public class MetricsManager {
+
+    private static final int ACTIONS = AuditLogManager.Action.values().length;
+
+    private final ItemLimiter plugin;
+
+    // Material -> per-action counters, indexed by Action ordinal
+    private final Map<Material, LongAdder[]> actionCounts = new ConcurrentHashMap<>();
+    private final Map<Material, LongAdder[]> actionItems = new ConcurrentHashMap<>();
+
+    private final LongAdder pickupsBlocked = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder sweepNanos = new LongAdder();
+    private final LongAdder enderChestHits = new LongAdder();
+    private final LongAdder enderChestMisses = new LongAdder();
+    private final LongAdder pickupCacheHits = new LongAdder();
+    private final LongAdder pickupCacheMisses = new LongAdder();
+    private volatile long lastSweepNanos;
+    private volatile int lastSweepPlayers;
+    private volatile int limitedMaterials;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsManager(ItemLimiter plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Starts the HTTP endpoint if metrics.enabled is set. Always binds to the loopback address.
+     */
+    public void start() {
+        if (!plugin.getConfig().getBoolean("metrics.enabled", false)) return;
+
+        int port = plugin.getConfig().getInt("metrics.port", 9464);
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not start metrics endpoint on port " + port + ": " + e.getMessage());
+            return;
+        }
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handleScrape);
+        server.start();
+        plugin.getLogger().info("Serving metrics on http://127.0.0.1:" + port + "/metrics");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /* ============================================================
+       RECORDING (main thread, lock-free)
+       ============================================================ */
+    public void recordAction(AuditLogManager.Action action, Material material, int amount) {
+        counters(actionCounts, material)[action.ordinal()].increment();
+        counters(actionItems, material)[action.ordinal()].add(amount);
+    }
+
+    public void recordPickupBlocked() {
+        pickupsBlocked.increment();
+    }
+
+    public void recordThrottled() {
+        throttled.increment();
+    }
+
+    public void recordSweep(long nanos, int players) {
+        sweeps.increment();
+        sweepNanos.add(nanos);
+        lastSweepNanos = nanos;
+        lastSweepPlayers = players;
+    }
+
+    public void recordEnderChestLookup(boolean hit) {
+        (hit ? enderChestHits : enderChestMisses).increment();
+    }
+
+    public void recordPickupCacheLookup(boolean hit) {
+        (hit ? pickupCacheHits : pickupCacheMisses).increment();
+    }
+
+    public void setLimitedMaterials(int count) {
+        limitedMaterials = count;
+    }
+
+    private LongAdder[] counters(Map<Material, LongAdder[]> map, Material material) {
+        LongAdder[] counters = map.get(material);
+        if (counters == null) {
+            counters = map.computeIfAbsent(material, k -> {
+                LongAdder[] created = new LongAdder[ACTIONS];
+                for (int i = 0; i < ACTIONS; i++) {
+                    created[i] = new LongAdder();
+                }
+                return created;
+            });
+        }
+        return counters;
+    }
+
+    /* ============================================================
+       EXPORT (HTTP threads)
+       ============================================================ */
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     */
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        header(out, "itemlimiter_enforcement_actions_total", "counter", "Enforcement actions by action and material");
+        writeActions(out, "itemlimiter_enforcement_actions_total", actionCounts);
+        header(out, "itemlimiter_enforced_items_total", "counter", "Items affected by enforcement actions by action and material");
+        writeActions(out, "itemlimiter_enforced_items_total", actionItems);
+
+        header(out, "itemlimiter_pickups_blocked_total", "counter", "Cancelled item pickups, including cached rejections");
+        sample(out, "itemlimiter_pickups_blocked_total", "", pickupsBlocked.sum());
+
+        header(out, "itemlimiter_throttled_checks_total", "counter", "Enforcement checks denied unchecked because the player ran out of tokens");
+        sample(out, "itemlimiter_throttled_checks_total", "", throttled.sum());
+
+        header(out, "itemlimiter_sweep_duration_seconds", "summary", "Duration of periodic excess sweeps");
+        sample(out, "itemlimiter_sweep_duration_seconds_sum", "", sweepNanos.sum() / 1e9);
+        sample(out, "itemlimiter_sweep_duration_seconds_count", "", sweeps.sum());
+        header(out, "itemlimiter_last_sweep_duration_seconds", "gauge", "Duration of the most recent sweep");
+        sample(out, "itemlimiter_last_sweep_duration_seconds", "", lastSweepNanos / 1e9);
+        header(out, "itemlimiter_last_sweep_players", "gauge", "Players scanned by the most recent sweep");
+        sample(out, "itemlimiter_last_sweep_players", "", lastSweepPlayers);
+
+        header(out, "itemlimiter_cache_lookups_total", "counter", "Cache lookups by cache and result");
+        sample(out, "itemlimiter_cache_lookups_total", "{cache=\"ender_chest\",result=\"hit\"}", enderChestHits.sum());
+        sample(out, "itemlimiter_cache_lookups_total", "{cache=\"ender_chest\",result=\"miss\"}", enderChestMisses.sum());
+        sample(out, "itemlimiter_cache_lookups_total", "{cache=\"pickup\",result=\"hit\"}", pickupCacheHits.sum());
+        sample(out, "itemlimiter_cache_lookups_total", "{cache=\"pickup\",result=\"miss\"}", pickupCacheMisses.sum());
+
+        header(out, "itemlimiter_limited_materials", "gauge", "Number of limited materials");
+        sample(out, "itemlimiter_limited_materials", "", limitedMaterials);
+
+        return out.toString();
+    }
+
+    private void writeActions(StringBuilder out, String name, Map<Material, LongAdder[]> map) {
+        AuditLogManager.Action[] actions = AuditLogManager.Action.values();
+        for (Map.Entry<Material, LongAdder[]> entry : map.entrySet()) {
+            LongAdder[] counters = entry.getValue();
+            for (int i = 0; i < ACTIONS; i++) {
+                long value = counters[i].sum();
+                if (value == 0) continue;
+                sample(out, name, "{action=\"" + actions[i].name().toLowerCase()
+                        + "\",material=\"" + entry.getKey().name() + "\"}", value);
+            }
+        }
+    }
+
+    private void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+}
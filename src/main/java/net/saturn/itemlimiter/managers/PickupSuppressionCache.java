@@ -0,0 +1,105 @@
+package net.saturn.itemlimiter.managers;
+
+import org.bukkit.Material;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Negative cache for item pickups. Remembers which limited materials a player is
+ * already at the limit for, and which ground item entities were already rejected
+ * for that player, so repeated pickup attempts can be denied without counting.
+ *
+ * At-limit flags are cleared when the player's count of that material may have
+ * dropped (drops, consumption, placing, throwing, death, inventory edits, excess
+ * removal) and expire after a while as a safety net for changes no event reports,
+ * such as commands. Rejected item entities are forgotten on any of these, since
+ * the rejected stack may be of the material that fits again.
+ */
+public class PickupSuppressionCache {
+
+    private static final long AT_LIMIT_TTL_MS = 10_000L;
+    private static final long IGNORE_ITEM_MS = 5_000L;
+    private static final int PURGE_THRESHOLD = 64;
+
+    private final Map<UUID, EnumMap<Material, Long>> atLimit = new HashMap<>();
+    private final Map<UUID, Map<UUID, Long>> ignoredItems = new HashMap<>();
+
+    public boolean isAtLimit(UUID player, Material material) {
+        EnumMap<Material, Long> flags = atLimit.get(player);
+        if (flags == null) return false;
+        Long expiry = flags.get(material);
+        if (expiry == null) return false;
+        if (expiry < System.currentTimeMillis()) {
+            flags.remove(material);
+            return false;
+        }
+        return true;
+    }
+
+    public void markAtLimit(UUID player, Material material) {
+        atLimit.computeIfAbsent(player, k -> new EnumMap<>(Material.class))
+                .put(material, System.currentTimeMillis() + AT_LIMIT_TTL_MS);
+    }
+
+    /**
+     * Clears the at-limit flag for one material, and the ignored item entities
+     * (their material may be the one that now fits again).
+     */
+    public void clear(UUID player, Material material) {
+        EnumMap<Material, Long> flags = atLimit.get(player);
+        if (flags != null) {
+            flags.remove(material);
+        }
+        // Rejections aren't tracked per material, and an expired flag doesn't mean none are stale
+        ignoredItems.remove(player);
+    }
+
+    /**
+     * Clears everything for a player, used when their inventory changed in a way
+     * that isn't tied to a single material.
+     */
+    public void clearAll(UUID player) {
+        atLimit.remove(player);
+        ignoredItems.remove(player);
+    }
+
+    public boolean isIgnored(UUID player, UUID item) {
+        Map<UUID, Long> items = ignoredItems.get(player);
+        if (items == null) return false;
+        Long expiry = items.get(item);
+        if (expiry == null) return false;
+        if (expiry < System.currentTimeMillis()) {
+            items.remove(item);
+            return false;
+        }
+        return true;
+    }
+
+    public void ignore(UUID player, UUID item) {
+        Map<UUID, Long> items = ignoredItems.computeIfAbsent(player, k -> new HashMap<>());
+        long now = System.currentTimeMillis();
+        if (items.size() >= PURGE_THRESHOLD) {
+            Iterator<Long> it = items.values().iterator();
+            while (it.hasNext()) {
+                if (it.next() < now) it.remove();
+            }
+        }
+        items.put(item, now + IGNORE_ITEM_MS);
+    }
+
+    public void remove(UUID player) {
+        clearAll(player);
+    }
+
+    /**
+     * Drops all state, e.g. after the limit table changed.
+     */
+    public void clear() {
+        atLimit.clear();
+        ignoredItems.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package net.saturn.itemlimiter.managers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter sketch: tracks the most frequent keys of a stream in
+ * a fixed number of counters. When all counters are taken, a new key replaces
+ * the smallest counter and inherits its count as error, so every key whose true
+ * count exceeds total / capacity is guaranteed to be tracked. Counts are
+ * overestimates by at most {@link Entry#error()}. Not thread-safe.
+ */
+public class SpaceSavingSketch<K> {
+
+    public record Entry<K>(K key, String label, long count, long error) {
+    }
+
+    private static final class Counter<K> {
+        final K key;
+        String label;
+        long count;
+        long error;
+
+        Counter(K key, String label, long count, long error) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+
+    public SpaceSavingSketch(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.counters = new HashMap<>(this.capacity * 2);
+    }
+
+    /**
+     * Counts {@code weight} occurrences of a key. The label (e.g. a player name)
+     * is kept for display and updated on every offer.
+     */
+    public void offer(K key, String label, long weight) {
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            counter.label = label;
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter<>(key, label, weight, 0L));
+            return;
+        }
+
+        // Evict the smallest counter; linear scan, only on a miss with a full sketch
+        Counter<K> min = null;
+        for (Counter<K> candidate : counters.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        counters.remove(min.key);
+        counters.put(key, new Counter<>(key, label, min.count + weight, min.count));
+    }
+
+    /**
+     * Returns up to {@code limit} tracked keys, highest count first.
+     */
+    public List<Entry<K>> top(int limit) {
+        List<Entry<K>> entries = new ArrayList<>(counters.size());
+        for (Counter<K> counter : counters.values()) {
+            entries.add(new Entry<>(counter.key, counter.label, counter.count, counter.error));
+        }
+        entries.sort(Comparator.comparingLong((Entry<K> e) -> e.count()).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+}
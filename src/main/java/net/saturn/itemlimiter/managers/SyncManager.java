@@ -0,0 +1,186 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.sync.LimitDelta;
+import net.saturn.itemlimiter.sync.SharedFileSyncTransport;
+import net.saturn.itemlimiter.sync.SyncTransport;
+import org.bukkit.Material;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the limit table in sync across servers. Local changes are published as
+ * versioned deltas through a {@link SyncTransport}; a single sync thread polls
+ * for new deltas and hands them to the main thread, which applies them in
+ * sequence order. The last applied sequence is persisted, so a node that was
+ * down only catches up on the deltas it missed.
+ */
+public class SyncManager {
+
+    private final ItemLimiter plugin;
+    private final ItemLimitManager itemLimitManager;
+    private final File stateFile;
+    private final FileConfiguration state;
+
+    private SyncTransport transport;
+    private ScheduledExecutorService executor;
+    private String nodeId;
+
+    private volatile long fetchedSequence; // Sync thread: last sequence handed to the main thread
+    private long appliedSequence;          // Main thread: last sequence applied to the limit table
+
+    public SyncManager(ItemLimiter plugin, ItemLimitManager itemLimitManager) {
+        this.plugin = plugin;
+        this.itemLimitManager = itemLimitManager;
+        this.stateFile = new File(plugin.getDataFolder(), "sync-state.yml");
+        this.state = YamlConfiguration.loadConfiguration(stateFile);
+    }
+
+    public void start() {
+        if (!plugin.getConfig().getBoolean("sync.enabled", false)) return;
+
+        String type = plugin.getConfig().getString("sync.transport", "file");
+        if (!type.equalsIgnoreCase("file")) {
+            plugin.getLogger().warning("Unknown sync transport '" + type + "', limit sync disabled");
+            return;
+        }
+        start(new SharedFileSyncTransport(new File(plugin.getConfig().getString("sync.file", "../shared/limit-deltas.log")),
+                plugin.getConfig().getLong("sync.compact-after-kb", 256L) * 1024L));
+    }
+
+    /**
+     * Starts syncing through the given transport. Other plugins or tests can
+     * supply their own transport implementation here.
+     */
+    public void start(SyncTransport transport) {
+        this.transport = transport;
+        this.nodeId = state.getString("node-id");
+        if (nodeId == null) {
+            nodeId = UUID.randomUUID().toString();
+            state.set("node-id", nodeId);
+        }
+        this.appliedSequence = state.getLong("applied-sequence", 0L);
+        this.fetchedSequence = appliedSequence;
+
+        long interval = Math.max(50L, plugin.getConfig().getLong("sync.poll-interval-ms", 250L));
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ItemLimiter-Sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::poll, 0L, interval, TimeUnit.MILLISECONDS);
+        plugin.getLogger().info("Limit sync enabled as node " + nodeId + " (applied sequence " + appliedSequence + ")");
+    }
+
+    public void stop() {
+        if (executor == null) return;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        transport.close();
+        executor = null;
+        saveState();
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Publishes a local change. The file I/O happens on the sync thread.
+     */
+    public void publish(LimitDelta delta) {
+        if (executor == null) return;
+        executor.execute(() -> {
+            try {
+                transport.publish(delta);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not publish limit change: " + e.getMessage());
+            }
+        });
+    }
+
+    private void poll() {
+        try {
+            List<LimitDelta> deltas = transport.fetchSince(fetchedSequence);
+            if (deltas.isEmpty()) return;
+
+            fetchedSequence = deltas.get(deltas.size() - 1).sequence();
+            plugin.getServer().getScheduler().runTask(plugin, () -> apply(deltas));
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not read limit changes: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Keep the scheduled task alive (e.g. plugin disabled while scheduling)
+            plugin.getLogger().warning("Limit sync poll failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies fetched deltas in order. Our own deltas are applied too, so every
+     * node ends in the same state even when two servers change a limit at once.
+     * Deltas are compared with the sequence applied before this batch, as the
+     * deltas of a compacted log's snapshot share one sequence number.
+     *
+     * Like a local /itemlimit add, every limit that ends up new or lower than
+     * before the batch is re-enforced on the players online here.
+     */
+    private void apply(List<LimitDelta> deltas) {
+        long from = appliedSequence;
+        Map<Material, Integer> before = itemLimitManager.getLimitedItems();
+        Set<Material> added = EnumSet.noneOf(Material.class);
+        boolean changed = false;
+        for (LimitDelta delta : deltas) {
+            if (delta.sequence() <= from) continue;
+            if (delta.operation() == LimitDelta.Operation.ADD && delta.limit() < 0) {
+                // Limits are 0 (banned) or more; a negative one would never let the count be "within" it
+                plugin.getLogger().warning("Ignoring sync delta " + delta.sequence() + " from " + delta.origin()
+                        + ": negative limit " + delta.limit() + " for " + delta.material());
+            } else if (itemLimitManager.applyDelta(delta)) {
+                changed = true;
+                if (delta.operation() == LimitDelta.Operation.ADD) {
+                    added.add(delta.material());
+                }
+            }
+            appliedSequence = Math.max(appliedSequence, delta.sequence());
+        }
+        if (changed) {
+            itemLimitManager.save();
+        }
+        saveState();
+
+        for (Material material : added) {
+            Integer limit = itemLimitManager.getLimit(material);
+            Integer previous = before.get(material);
+            if (limit != null && (previous == null || limit < previous)) {
+                plugin.getEnforcementWaves().start(material, plugin.getServer().getConsoleSender());
+            }
+        }
+    }
+
+    private void saveState() {
+        state.set("applied-sequence", appliedSequence);
+        try {
+            state.save(stateFile);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not save sync-state.yml: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package net.saturn.itemlimiter.simulation;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.container.ContainerResolverRegistry;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Dry run of a proposed limit: how many players would be over it and how many
+ * items would be removed. The main thread only copies the online inventories;
+ * counting them, and optionally reading every offline playerdata file, runs in
+ * parallel on a small worker pool. Nothing is enforced or written.
+ */
+public class LimitSimulator {
+
+    /**
+     * Lower bounds of the excess buckets in {@link Result#distribution()}: 1-7, 8-63, 64-575, 576+.
+     */
+    public static final int[] EXCESS_BUCKETS = {1, 8, 64, 576};
+
+    private static final int BATCH_SIZE = 128;
+    private static final int TOP_PLAYERS = 5;
+
+    public record Affected(UUID player, String name, int count) {
+    }
+
+    public record Result(Material material, int limit, int online, int offline, int unreadable,
+                         int affectedPlayers, long itemsRemoved, int[] distribution, List<Affected> top) {
+    }
+
+    private record Snapshot(UUID player, String name, ItemStack[] items) {
+    }
+
+    private final ItemLimiter plugin;
+    private final ContainerResolverRegistry containerResolvers;
+    private ExecutorService workers;
+
+    public LimitSimulator(ItemLimiter plugin, ContainerResolverRegistry containerResolvers) {
+        this.plugin = plugin;
+        this.containerResolvers = containerResolvers;
+    }
+
+    public synchronized void stop() {
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * Starts a simulation; the callback runs on the main thread when it's done.
+     */
+    public void simulate(Material material, int limit, boolean includeOffline, Consumer<Result> callback) {
+        // Copy the online inventories on the main thread; everything after runs on the workers
+        List<Snapshot> snapshots = new ArrayList<>();
+        Set<String> onlineFiles = new HashSet<>();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            ItemStack[] inventory = player.getInventory().getContents();
+            ItemStack[] ender = player.getEnderChest().getContents();
+            ItemStack[] items = new ItemStack[inventory.length + ender.length];
+            for (int i = 0; i < inventory.length; i++) {
+                items[i] = inventory[i] != null ? inventory[i].clone() : null;
+            }
+            for (int i = 0; i < ender.length; i++) {
+                items[inventory.length + i] = ender[i] != null ? ender[i].clone() : null;
+            }
+            snapshots.add(new Snapshot(player.getUniqueId(), player.getName(), items));
+            onlineFiles.add(player.getUniqueId() + ".dat");
+        }
+        File playerData = includeOffline ? playerDataFolder() : null;
+
+        ExecutorService pool = workers();
+        String itemId = material.getKey().toString();
+        Tally tally = new Tally(limit);
+
+        // List the playerdata folder on a worker too, then fan out; nothing here blocks a thread on another
+        CompletableFuture.supplyAsync(() -> playerData != null ? playerData.listFiles((dir, name) ->
+                name.endsWith(".dat") && !onlineFiles.contains(name)) : null, pool).thenCompose(files -> {
+            List<CompletableFuture<Void>> tasks = new ArrayList<>();
+            for (int from = 0; from < snapshots.size(); from += BATCH_SIZE) {
+                List<Snapshot> batch = snapshots.subList(from, Math.min(from + BATCH_SIZE, snapshots.size()));
+                tasks.add(CompletableFuture.runAsync(() -> {
+                    for (Snapshot snapshot : batch) {
+                        tally.online.incrementAndGet();
+                        tally.add(snapshot.player(), snapshot.name(), countItems(snapshot.items(), material));
+                    }
+                }, pool));
+            }
+
+            if (files != null) {
+                for (int from = 0; from < files.length; from += BATCH_SIZE) {
+                    int start = from;
+                    tasks.add(CompletableFuture.runAsync(() -> {
+                        for (int i = start; i < Math.min(start + BATCH_SIZE, files.length); i++) {
+                            countOffline(files[i], itemId, tally);
+                        }
+                    }, pool));
+                }
+            }
+
+            return CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0]));
+        }).whenComplete((ignored, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Limit simulation failed: " + error);
+            }
+            Result result = tally.toResult(material);
+            if (plugin.isEnabled()) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> callback.accept(result));
+            }
+        });
+    }
+
+    private void countOffline(File file, String itemId, Tally tally) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(file.getName().substring(0, file.getName().length() - 4));
+        } catch (IllegalArgumentException e) {
+            return; // Not a player file
+        }
+        try {
+            tally.offline.incrementAndGet();
+            tally.add(uuid, null, PlayerDataReader.countItem(file, itemId));
+        } catch (IOException e) {
+            tally.unreadable.incrementAndGet();
+        }
+    }
+
+    private int countItems(ItemStack[] items, Material material) {
+        int count = 0;
+        for (ItemStack item : items) {
+            if (item == null || item.getType() == Material.AIR) continue;
+            if (item.getType() == material) {
+                count += item.getAmount();
+            }
+            count += countItems(containerResolvers.getContents(item), material);
+        }
+        return count;
+    }
+
+    private File playerDataFolder() {
+        List<World> worlds = plugin.getServer().getWorlds();
+        return worlds.isEmpty() ? null : new File(worlds.get(0).getWorldFolder(), "playerdata");
+    }
+
+    private synchronized ExecutorService workers() {
+        if (workers == null) {
+            int threads = Math.max(1, plugin.getConfig().getInt("simulation.threads",
+                    Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+            AtomicInteger index = new AtomicInteger();
+            workers = Executors.newFixedThreadPool(threads, r -> {
+                Thread thread = new Thread(r, "ItemLimiter-Simulate-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Aggregates per-player counts from all workers.
+     */
+    private static final class Tally {
+        final int limit;
+        final AtomicInteger online = new AtomicInteger();
+        final AtomicInteger offline = new AtomicInteger();
+        final AtomicInteger unreadable = new AtomicInteger();
+        private final List<Affected> affected = new ArrayList<>();
+
+        Tally(int limit) {
+            this.limit = limit;
+        }
+
+        void add(UUID player, String name, int count) {
+            if (count <= limit) return;
+            synchronized (affected) {
+                affected.add(new Affected(player, name, count));
+            }
+        }
+
+        Result toResult(Material material) {
+            synchronized (affected) {
+                int[] distribution = new int[EXCESS_BUCKETS.length];
+                long removed = 0;
+                for (Affected entry : affected) {
+                    int excess = entry.count() - limit;
+                    removed += excess;
+                    int bucket = EXCESS_BUCKETS.length - 1;
+                    while (excess < EXCESS_BUCKETS[bucket]) {
+                        bucket--;
+                    }
+                    distribution[bucket]++;
+                }
+
+                List<Affected> top = new ArrayList<>(affected);
+                top.sort(Comparator.comparingInt(Affected::count).reversed());
+                return new Result(material, limit, online.get(), offline.get(), unreadable.get(), affected.size(),
+                        removed, distribution, List.copyOf(top.subList(0, Math.min(TOP_PLAYERS, top.size()))));
+            }
+        }
+    }
+}
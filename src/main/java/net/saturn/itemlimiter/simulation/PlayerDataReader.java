@@ -0,0 +1,157 @@
+package net.saturn.itemlimiter.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Minimal reader for vanilla playerdata files (gzipped NBT), used to count
+ * items of offline players without loading them into the server. Only
+ * understands what counting needs: the Inventory and EnderItems lists, the
+ * equipment compound (armor and offhand since 1.21.5), item ids and counts, and items nested through the container and bundle_contents
+ * components. Thread-safe; holds no state.
+ */
+final class PlayerDataReader {
+
+    private static final int TAG_END = 0;
+    private static final int TAG_BYTE = 1;
+    private static final int TAG_SHORT = 2;
+    private static final int TAG_INT = 3;
+    private static final int TAG_LONG = 4;
+    private static final int TAG_FLOAT = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_BYTE_ARRAY = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_LIST = 9;
+    private static final int TAG_COMPOUND = 10;
+    private static final int TAG_INT_ARRAY = 11;
+    private static final int TAG_LONG_ARRAY = 12;
+
+    private PlayerDataReader() {
+    }
+
+    /**
+     * Counts items with the given namespaced id (e.g. "minecraft:totem_of_undying")
+     * in the player's inventory, equipment and ender chest, including nested items.
+     */
+    static int countItem(File playerDataFile, String itemId) throws IOException {
+        Map<String, Object> root;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(playerDataFile))))) {
+            if (in.readUnsignedByte() != TAG_COMPOUND) {
+                throw new IOException("Not an NBT compound");
+            }
+            in.readUTF(); // Root name
+            root = readCompound(in);
+        }
+        return countList(root.get("Inventory"), itemId)
+                + countEquipment(root.get("equipment"), itemId)
+                + countList(root.get("EnderItems"), itemId);
+    }
+
+    /**
+     * Since 1.21.5 armor and the offhand are stored as a compound keyed by slot
+     * (head, chest, legs, feet, offhand, body) rather than in the Inventory list.
+     */
+    private static int countEquipment(Object equipment, String itemId) {
+        if (!(equipment instanceof Map<?, ?> slots)) return 0;
+        int count = 0;
+        for (Object item : slots.values()) {
+            count += countItem(item, itemId);
+        }
+        return count;
+    }
+
+    private static int countList(Object list, String itemId) {
+        if (!(list instanceof List<?> items)) return 0;
+        int count = 0;
+        for (Object item : items) {
+            count += countItem(item, itemId);
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int countItem(Object tag, String itemId) {
+        if (!(tag instanceof Map<?, ?> item)) return 0;
+
+        int count = 0;
+        if (itemId.equals(item.get("id"))) {
+            // "count" since 1.20.5, "Count" (byte) before
+            Object amount = item.containsKey("count") ? item.get("count") : item.get("Count");
+            count += amount instanceof Number n ? n.intValue() : 1;
+        }
+
+        if (item.get("components") instanceof Map<?, ?> components) {
+            if (components.get("minecraft:container") instanceof List<?> slots) {
+                for (Object slot : slots) {
+                    if (slot instanceof Map<?, ?> entry) {
+                        count += countItem(((Map<String, Object>) entry).get("item"), itemId);
+                    }
+                }
+            }
+            if (components.get("minecraft:bundle_contents") instanceof List<?> bundle) {
+                count += countList(bundle, itemId);
+            }
+        }
+        return count;
+    }
+
+    private static Map<String, Object> readCompound(DataInputStream in) throws IOException {
+        Map<String, Object> compound = new HashMap<>();
+        int type;
+        while ((type = in.readUnsignedByte()) != TAG_END) {
+            String name = in.readUTF();
+            compound.put(name, readPayload(in, type));
+        }
+        return compound;
+    }
+
+    private static Object readPayload(DataInputStream in, int type) throws IOException {
+        switch (type) {
+            case TAG_BYTE:
+                return in.readByte();
+            case TAG_SHORT:
+                return in.readShort();
+            case TAG_INT:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_FLOAT:
+                return in.readFloat();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_BYTE_ARRAY:
+                in.skipNBytes(in.readInt());
+                return null;
+            case TAG_STRING:
+                return in.readUTF();
+            case TAG_LIST: {
+                int elementType = in.readUnsignedByte();
+                int length = in.readInt();
+                List<Object> list = new ArrayList<>(Math.max(0, length));
+                for (int i = 0; i < length; i++) {
+                    list.add(readPayload(in, elementType));
+                }
+                return list;
+            }
+            case TAG_COMPOUND:
+                return readCompound(in);
+            case TAG_INT_ARRAY:
+                in.skipNBytes(4L * in.readInt());
+                return null;
+            case TAG_LONG_ARRAY:
+                in.skipNBytes(8L * in.readInt());
+                return null;
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+}
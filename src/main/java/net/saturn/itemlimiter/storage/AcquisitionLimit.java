@@ -0,0 +1,7 @@
+package net.saturn.itemlimiter.storage;
+
+/**
+ * A time-windowed limit: at most {@code max} items acquired per {@code windowMinutes}.
+ */
+public record AcquisitionLimit(int max, int windowMinutes) {
+}
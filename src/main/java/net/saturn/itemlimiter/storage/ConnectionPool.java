@@ -0,0 +1,69 @@
+package net.saturn.itemlimiter.storage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal fixed-size JDBC connection pool. Connections are opened up front, set
+ * up with the given per-connection statements (e.g. PRAGMAs) and borrowed from an
+ * idle queue; embedded databases don't need anything fancier.
+ */
+public class ConnectionPool {
+
+    private final List<Connection> all = new ArrayList<>();
+    private final BlockingQueue<Connection> idle;
+
+    public ConnectionPool(String url, int size, List<String> initStatements) throws SQLException {
+        this.idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                all.add(connection);
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : initStatements) {
+                        statement.execute(sql);
+                    }
+                }
+                idle.add(connection);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public Connection borrow() throws SQLException {
+        try {
+            Connection connection = idle.poll(5, TimeUnit.SECONDS);
+            if (connection == null) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    public void release(Connection connection) {
+        idle.offer(connection);
+    }
+
+    public void close() {
+        for (Connection connection : all) {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+            }
+        }
+        all.clear();
+        idle.clear();
+    }
+}
@@ -0,0 +1,67 @@
+package net.saturn.itemlimiter.storage;
+
+import org.bukkit.Material;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Persistence backend for the limit table and per-player plugin state.
+ * Limit tables are loaded on the main thread during startup; player data read
+ * at join should use {@link #loadPlayerDataAsync}. Saves may be queued and
+ * written asynchronously by the implementation.
+ */
+public interface LimitStorage {
+
+    /**
+     * Opens the backend (files, connections, schema). Returns false if it can't be used.
+     */
+    boolean open();
+
+    Map<Material, Integer> loadLimits();
+
+    long loadVersion();
+
+    /**
+     * Replaces the stored limit table with the given snapshot.
+     */
+    void saveLimits(Map<Material, Integer> limits, long version);
+
+    Map<Material, AcquisitionLimit> loadAcquisitionLimits();
+
+    /**
+     * Replaces the stored acquisition (rate) limits with the given snapshot.
+     */
+    void saveAcquisitionLimits(Map<Material, AcquisitionLimit> limits);
+
+    /**
+     * Returns a stored per-player value, or null if none is stored.
+     */
+    String loadPlayerData(UUID player, String key);
+
+    /**
+     * Like {@link #loadPlayerData}, without blocking the caller on I/O. The future
+     * may complete on another thread; switch back to the main thread before using
+     * the value with game state. Backends that keep player data in memory complete it immediately.
+     */
+    default CompletableFuture<String> loadPlayerDataAsync(UUID player, String key) {
+        return CompletableFuture.completedFuture(loadPlayerData(player, key));
+    }
+
+    /**
+     * Stores a per-player value; a null value deletes it.
+     */
+    void savePlayerData(UUID player, String key, String value);
+
+    /**
+     * Writes pending player data now, for backends that otherwise only write it on close.
+     */
+    default void flush() {
+    }
+
+    /**
+     * Writes everything still pending and releases resources.
+     */
+    void close();
+}
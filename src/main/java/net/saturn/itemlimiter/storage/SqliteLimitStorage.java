@@ -0,0 +1,452 @@
+package net.saturn.itemlimiter.storage;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Material;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Embedded SQLite storage (the driver ships with the server). Writes never run
+ * on the caller's thread: the latest limit table snapshot and pending player
+ * values are coalesced in memory and flushed by a writer thread in one
+ * transaction using batched prepared statements. Reads check pending writes first;
+ * player data read at join goes through a reader thread instead of the main thread.
+ *
+ * A new, empty database imports limited-items.yml and player-data.yml once, so
+ * switching storage.type from yaml to sqlite keeps the existing limits.
+ */
+public class SqliteLimitStorage implements LimitStorage {
+
+    /**
+     * Schema migrations; index + 1 is the schema version each one upgrades to.
+     * Only ever append to this list.
+     */
+    private static final String[][] MIGRATIONS = {
+            {
+                    "CREATE TABLE limits (material TEXT PRIMARY KEY, max_quantity INTEGER NOT NULL)",
+                    "CREATE TABLE meta (meta_key TEXT PRIMARY KEY, meta_value TEXT NOT NULL)",
+                    "CREATE TABLE player_data (uuid TEXT NOT NULL, data_key TEXT NOT NULL, data_value TEXT NOT NULL, "
+                            + "PRIMARY KEY (uuid, data_key))"
+            },
+            {
+                    "CREATE TABLE acquisition_limits (material TEXT PRIMARY KEY, max_quantity INTEGER NOT NULL, "
+                            + "window_minutes INTEGER NOT NULL)"
+            }
+    };
+
+    /**
+     * Applied to every pooled connection; synchronous and busy_timeout are per connection.
+     */
+    private static final List<String> CONNECTION_PRAGMAS = List.of(
+            "PRAGMA journal_mode=WAL",
+            "PRAGMA synchronous=NORMAL",
+            "PRAGMA busy_timeout=5000"
+    );
+
+    private static final String DELETED = new String("<deleted>"); // Identity sentinel for pending deletes
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private record Snapshot(Map<Material, Integer> limits, long version) {
+    }
+
+    private final ItemLimiter plugin;
+    private final File dbFile;
+    private final int poolSize;
+    private ConnectionPool pool;
+
+    private final AtomicReference<Snapshot> pendingLimits = new AtomicReference<>();
+    private final AtomicReference<Map<Material, AcquisitionLimit>> pendingAcquisitionLimits = new AtomicReference<>();
+    private final Map<String, String> pendingPlayerData = new ConcurrentHashMap<>(); // "uuid|key" -> value
+
+    private volatile boolean running;
+    private Thread writerThread;
+    private ExecutorService readerExecutor;
+
+    public SqliteLimitStorage(ItemLimiter plugin, File dbFile, int poolSize) {
+        this.plugin = plugin;
+        this.dbFile = dbFile;
+        this.poolSize = Math.max(2, poolSize);
+    }
+
+    @Override
+    public boolean open() {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            dbFile.getParentFile().mkdirs();
+            pool = new ConnectionPool("jdbc:sqlite:" + dbFile.getAbsolutePath(), poolSize, CONNECTION_PRAGMAS);
+            Connection connection = pool.borrow();
+            try {
+                migrate(connection);
+                importYamlIfEmpty(connection);
+            } finally {
+                pool.release(connection);
+            }
+        } catch (ClassNotFoundException | SQLException e) {
+            plugin.getLogger().severe("Could not open " + dbFile.getName() + ": " + e.getMessage());
+            if (pool != null) {
+                pool.close();
+            }
+            return false;
+        }
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "ItemLimiter-StorageWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        readerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ItemLimiter-StorageReader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        return true;
+    }
+
+    /**
+     * Copies the YAML storage into a database that has never stored a limit table,
+     * in one transaction. Writing the table also stores its version, so this runs once.
+     */
+    private void importYamlIfEmpty(Connection connection) throws SQLException {
+        File yamlFile = new File(plugin.getDataFolder(), "limited-items.yml");
+        if (!yamlFile.exists()) return;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT (SELECT COUNT(*) FROM limits) + (SELECT COUNT(*) FROM meta WHERE meta_key = 'version')")) {
+            if (rs.next() && rs.getInt(1) > 0) return;
+        }
+
+        YamlLimitStorage yaml = new YamlLimitStorage(plugin);
+        yaml.open();
+        Snapshot limits = new Snapshot(yaml.loadLimits(), yaml.loadVersion());
+        Map<Material, AcquisitionLimit> acquisitionLimits = yaml.loadAcquisitionLimits();
+        yaml.forEachPlayerData((player, key, value) -> pendingPlayerData.put(player + "|" + key, value));
+
+        connection.setAutoCommit(false);
+        try {
+            writeLimits(connection, limits);
+            writeAcquisitionLimits(connection, acquisitionLimits);
+            writePlayerData(connection);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            pendingPlayerData.clear();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        pendingPlayerData.clear();
+        plugin.getLogger().info("Imported " + limits.limits().size() + " limits and "
+                + acquisitionLimits.size() + " acquisition limits from limited-items.yml into " + dbFile.getName());
+    }
+
+    private void migrate(Connection connection) throws SQLException {
+        int current;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            current = rs.next() ? rs.getInt(1) : 0;
+        }
+        for (int version = current; version < MIGRATIONS.length; version++) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : MIGRATIONS[version]) {
+                    statement.execute(sql);
+                }
+                statement.execute("PRAGMA user_version = " + (version + 1));
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            plugin.getLogger().info("Migrated " + dbFile.getName() + " to schema version " + (version + 1));
+        }
+    }
+
+    @Override
+    public Map<Material, Integer> loadLimits() {
+        Snapshot pending = pendingLimits.get();
+        if (pending != null) {
+            return new HashMap<>(pending.limits());
+        }
+
+        Map<Material, Integer> limits = new HashMap<>();
+        try {
+            Connection connection = pool.borrow();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT material, max_quantity FROM limits");
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        limits.put(Material.valueOf(rs.getString(1)), rs.getInt(2));
+                    } catch (IllegalArgumentException e) {
+                        plugin.getLogger().warning("Invalid material in " + dbFile.getName() + ": " + rs.getString(1));
+                    }
+                }
+            } finally {
+                pool.release(connection);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Could not load limited items: " + e.getMessage());
+        }
+        return limits;
+    }
+
+    @Override
+    public long loadVersion() {
+        Snapshot pending = pendingLimits.get();
+        if (pending != null) {
+            return pending.version();
+        }
+        String value = loadMeta("version");
+        try {
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    @Override
+    public void saveLimits(Map<Material, Integer> limits, long version) {
+        pendingLimits.set(new Snapshot(new HashMap<>(limits), version));
+    }
+
+    @Override
+    public Map<Material, AcquisitionLimit> loadAcquisitionLimits() {
+        Map<Material, AcquisitionLimit> pending = pendingAcquisitionLimits.get();
+        if (pending != null) {
+            return new HashMap<>(pending);
+        }
+
+        Map<Material, AcquisitionLimit> limits = new HashMap<>();
+        try {
+            Connection connection = pool.borrow();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT material, max_quantity, window_minutes FROM acquisition_limits");
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        limits.put(Material.valueOf(rs.getString(1)), new AcquisitionLimit(rs.getInt(2), rs.getInt(3)));
+                    } catch (IllegalArgumentException e) {
+                        plugin.getLogger().warning("Invalid material in " + dbFile.getName() + ": " + rs.getString(1));
+                    }
+                }
+            } finally {
+                pool.release(connection);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Could not load acquisition limits: " + e.getMessage());
+        }
+        return limits;
+    }
+
+    @Override
+    public void saveAcquisitionLimits(Map<Material, AcquisitionLimit> limits) {
+        pendingAcquisitionLimits.set(new HashMap<>(limits));
+    }
+
+    @Override
+    public String loadPlayerData(UUID player, String key) {
+        String pending = pendingPlayerData.get(player + "|" + key);
+        if (pending != null) {
+            return pending == DELETED ? null : pending;
+        }
+
+        try {
+            Connection connection = pool.borrow();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT data_value FROM player_data WHERE uuid = ? AND data_key = ?")) {
+                statement.setString(1, player.toString());
+                statement.setString(2, key);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            } finally {
+                pool.release(connection);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not load player data: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> loadPlayerDataAsync(UUID player, String key) {
+        String pending = pendingPlayerData.get(player + "|" + key);
+        if (pending != null) {
+            return CompletableFuture.completedFuture(pending == DELETED ? null : pending);
+        }
+        return CompletableFuture.supplyAsync(() -> loadPlayerData(player, key), readerExecutor);
+    }
+
+    @Override
+    public void savePlayerData(UUID player, String key, String value) {
+        pendingPlayerData.put(player + "|" + key, value != null ? value : DELETED);
+    }
+
+    @Override
+    public void close() {
+        if (!running) return;
+        running = false;
+        readerExecutor.shutdown();
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.close();
+    }
+
+    private String loadMeta(String key) {
+        try {
+            Connection connection = pool.borrow();
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT meta_value FROM meta WHERE meta_key = ?")) {
+                statement.setString(1, key);
+                try (ResultSet rs = statement.executeQuery()) {
+                    return rs.next() ? rs.getString(1) : null;
+                }
+            } finally {
+                pool.release(connection);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not load " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /* ============================================================
+       WRITER THREAD
+       ============================================================ */
+    private void runWriter() {
+        while (running) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+            flush();
+        }
+        flush();
+    }
+
+    private void flush() {
+        Snapshot limits = pendingLimits.get();
+        Map<Material, AcquisitionLimit> acquisitionLimits = pendingAcquisitionLimits.get();
+        if (limits == null && acquisitionLimits == null && pendingPlayerData.isEmpty()) return;
+
+        try {
+            Connection connection = pool.borrow();
+            try {
+                connection.setAutoCommit(false);
+                if (limits != null) {
+                    writeLimits(connection, limits);
+                }
+                if (acquisitionLimits != null) {
+                    writeAcquisitionLimits(connection, acquisitionLimits);
+                }
+                Map<String, String> written = writePlayerData(connection);
+                connection.commit();
+
+                // Only drop what was written, unless it changed again in the meantime
+                if (limits != null) {
+                    pendingLimits.compareAndSet(limits, null);
+                }
+                if (acquisitionLimits != null) {
+                    pendingAcquisitionLimits.compareAndSet(acquisitionLimits, null);
+                }
+                for (Map.Entry<String, String> entry : written.entrySet()) {
+                    pendingPlayerData.remove(entry.getKey(), entry.getValue());
+                }
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+                pool.release(connection);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().warning("Could not write to " + dbFile.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void writeLimits(Connection connection, Snapshot snapshot) throws SQLException {
+        try (Statement delete = connection.createStatement()) {
+            delete.execute("DELETE FROM limits");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO limits (material, max_quantity) VALUES (?, ?)")) {
+            for (Map.Entry<Material, Integer> entry : snapshot.limits().entrySet()) {
+                insert.setString(1, entry.getKey().name());
+                insert.setInt(2, entry.getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (PreparedStatement meta = connection.prepareStatement(
+                "INSERT INTO meta (meta_key, meta_value) VALUES ('version', ?) "
+                        + "ON CONFLICT(meta_key) DO UPDATE SET meta_value = excluded.meta_value")) {
+            meta.setString(1, String.valueOf(snapshot.version()));
+            meta.executeUpdate();
+        }
+    }
+
+    private void writeAcquisitionLimits(Connection connection, Map<Material, AcquisitionLimit> limits) throws SQLException {
+        try (Statement delete = connection.createStatement()) {
+            delete.execute("DELETE FROM acquisition_limits");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO acquisition_limits (material, max_quantity, window_minutes) VALUES (?, ?, ?)")) {
+            for (Map.Entry<Material, AcquisitionLimit> entry : limits.entrySet()) {
+                insert.setString(1, entry.getKey().name());
+                insert.setInt(2, entry.getValue().max());
+                insert.setInt(3, entry.getValue().windowMinutes());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private Map<String, String> writePlayerData(Connection connection) throws SQLException {
+        Map<String, String> written = new HashMap<>();
+        if (pendingPlayerData.isEmpty()) return written;
+
+        try (PreparedStatement upsert = connection.prepareStatement(
+                "INSERT INTO player_data (uuid, data_key, data_value) VALUES (?, ?, ?) "
+                        + "ON CONFLICT(uuid, data_key) DO UPDATE SET data_value = excluded.data_value");
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM player_data WHERE uuid = ? AND data_key = ?")) {
+            for (Map.Entry<String, String> entry : pendingPlayerData.entrySet()) {
+                int split = entry.getKey().indexOf('|');
+                String uuid = entry.getKey().substring(0, split);
+                String key = entry.getKey().substring(split + 1);
+                String value = entry.getValue();
+                if (value == DELETED) {
+                    delete.setString(1, uuid);
+                    delete.setString(2, key);
+                    delete.addBatch();
+                } else {
+                    upsert.setString(1, uuid);
+                    upsert.setString(2, key);
+                    upsert.setString(3, value);
+                    upsert.addBatch();
+                }
+                written.put(entry.getKey(), value);
+            }
+            upsert.executeBatch();
+            delete.executeBatch();
+        }
+        return written;
+    }
+}
@@ -0,0 +1,173 @@
+package net.saturn.itemlimiter.storage;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Default storage: the limit table and acquisition limits in limited-items.yml and per-player state in
+ * player-data.yml. Player data is kept in memory and written on flush and close.
+ */
+public class YamlLimitStorage implements LimitStorage {
+
+    private final ItemLimiter plugin;
+    private final File dataFile;
+    private final File playerDataFile;
+    private FileConfiguration data;
+    private FileConfiguration playerData;
+    private boolean playerDataDirty;
+
+    public YamlLimitStorage(ItemLimiter plugin) {
+        this.plugin = plugin;
+        this.dataFile = new File(plugin.getDataFolder(), "limited-items.yml");
+        this.playerDataFile = new File(plugin.getDataFolder(), "player-data.yml");
+    }
+
+    @Override
+    public boolean open() {
+        if (!dataFile.exists()) {
+            try {
+                dataFile.getParentFile().mkdirs();
+                dataFile.createNewFile();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Could not create limited-items.yml: " + e.getMessage());
+            }
+        }
+
+        data = YamlConfiguration.loadConfiguration(dataFile);
+        playerData = YamlConfiguration.loadConfiguration(playerDataFile);
+        return true;
+    }
+
+    @Override
+    public Map<Material, Integer> loadLimits() {
+        Map<Material, Integer> limits = new HashMap<>();
+        if (data.contains("limited-items")) {
+            for (String key : data.getConfigurationSection("limited-items").getKeys(false)) {
+                try {
+                    Material material = Material.valueOf(key.toUpperCase());
+                    int limit = data.getInt("limited-items." + key);
+                    limits.put(material, limit);
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Invalid material in limited-items.yml: " + key);
+                }
+            }
+        }
+        return limits;
+    }
+
+    @Override
+    public long loadVersion() {
+        return data.getLong("version", 0L);
+    }
+
+    @Override
+    public void saveLimits(Map<Material, Integer> limits, long version) {
+        try {
+            // Clear existing data
+            data.set("limited-items", null);
+            data.set("version", version);
+
+            // Save limited items with their limits
+            for (Map.Entry<Material, Integer> entry : limits.entrySet()) {
+                data.set("limited-items." + entry.getKey().name(), entry.getValue());
+            }
+
+            data.save(dataFile);
+            plugin.getLogger().info("Saved limited items");
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save limited items: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<Material, AcquisitionLimit> loadAcquisitionLimits() {
+        Map<Material, AcquisitionLimit> limits = new HashMap<>();
+        if (data.contains("acquisition-limits")) {
+            for (String key : data.getConfigurationSection("acquisition-limits").getKeys(false)) {
+                try {
+                    Material material = Material.valueOf(key.toUpperCase());
+                    limits.put(material, new AcquisitionLimit(data.getInt("acquisition-limits." + key + ".max"),
+                            data.getInt("acquisition-limits." + key + ".window-minutes", 60)));
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Invalid material in limited-items.yml: " + key);
+                }
+            }
+        }
+        return limits;
+    }
+
+    @Override
+    public void saveAcquisitionLimits(Map<Material, AcquisitionLimit> limits) {
+        try {
+            data.set("acquisition-limits", null);
+            for (Map.Entry<Material, AcquisitionLimit> entry : limits.entrySet()) {
+                data.set("acquisition-limits." + entry.getKey().name() + ".max", entry.getValue().max());
+                data.set("acquisition-limits." + entry.getKey().name() + ".window-minutes", entry.getValue().windowMinutes());
+            }
+            data.save(dataFile);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save acquisition limits: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String loadPlayerData(UUID player, String key) {
+        return playerData.getString(player + "." + key);
+    }
+
+    @Override
+    public void savePlayerData(UUID player, String key, String value) {
+        playerData.set(player + "." + key, value);
+        playerDataDirty = true;
+    }
+
+    /**
+     * Visits every stored player value; used to import into another backend.
+     */
+    void forEachPlayerData(PlayerDataConsumer consumer) {
+        for (String uuid : playerData.getKeys(false)) {
+            ConfigurationSection section = playerData.getConfigurationSection(uuid);
+            if (section == null) continue;
+            try {
+                UUID player = UUID.fromString(uuid);
+                for (String key : section.getKeys(false)) {
+                    String value = section.getString(key);
+                    if (value != null) {
+                        consumer.accept(player, key, value);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                plugin.getLogger().warning("Invalid player in player-data.yml: " + uuid);
+            }
+        }
+    }
+
+    interface PlayerDataConsumer {
+        void accept(UUID player, String key, String value);
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    @Override
+    public void flush() {
+        if (!playerDataDirty) return;
+        try {
+            playerData.save(playerDataFile);
+            playerDataDirty = false;
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save player-data.yml: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package net.saturn.itemlimiter.sync;
+
+import org.bukkit.Material;
+
+/**
+ * A single versioned change to the limit table, as carried between servers.
+ * The sequence number is assigned by the transport when the delta is published.
+ */
+public record LimitDelta(long sequence, String origin, long time, Operation operation, Material material, int limit) {
+
+    public enum Operation {
+        ADD,
+        REMOVE,
+        CLEAR
+    }
+
+    public static LimitDelta add(String origin, Material material, int limit) {
+        return new LimitDelta(0, origin, System.currentTimeMillis(), Operation.ADD, material, limit);
+    }
+
+    public static LimitDelta remove(String origin, Material material) {
+        return new LimitDelta(0, origin, System.currentTimeMillis(), Operation.REMOVE, material, 0);
+    }
+
+    public static LimitDelta clear(String origin) {
+        return new LimitDelta(0, origin, System.currentTimeMillis(), Operation.CLEAR, null, 0);
+    }
+
+    public LimitDelta withSequence(long sequence) {
+        return new LimitDelta(sequence, origin, time, operation, material, limit);
+    }
+
+    public String toLine() {
+        return sequence + "\t" + origin + "\t" + time + "\t" + operation.name() + "\t"
+                + (material != null ? material.name() : "-") + "\t" + limit;
+    }
+
+    /**
+     * Parses a line written by {@link #toLine()}, or returns null if it is malformed
+     * or names a material this server doesn't know.
+     */
+    public static LimitDelta fromLine(String line) {
+        String[] parts = line.split("\t");
+        if (parts.length != 6) return null;
+        try {
+            Material material = parts[4].equals("-") ? null : Material.valueOf(parts[4]);
+            return new LimitDelta(Long.parseLong(parts[0]), parts[1], Long.parseLong(parts[2]),
+                    Operation.valueOf(parts[3]), material, Integer.parseInt(parts[5]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
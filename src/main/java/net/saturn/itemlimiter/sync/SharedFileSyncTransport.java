@@ -0,0 +1,182 @@
+package net.saturn.itemlimiter.sync;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sync transport backed by an append-only delta log on a file shared by all
+ * servers (same host or network share). Access is serialized through a lock on
+ * a sidecar ".lock" file, which unlike the log is never replaced: writers take it
+ * exclusively to assign the next sequence number, readers take it shared. Readers
+ * remember the byte offset of the last delta they read, so polling only reads
+ * newly appended lines.
+ *
+ * Once the log grows past a size threshold, the writer that notices compacts it
+ * under the same lock: the whole history is replaced by a snapshot of the
+ * resulting table (a CLEAR and one ADD per limit, all carrying the last sequence
+ * number) behind a header line naming that sequence. The snapshot is written to
+ * a temporary file and moved over the log atomically, so a crash mid-compaction
+ * leaves the old log intact. Nodes already past it skip
+ * the snapshot; nodes behind it apply it as one batch. Readers notice a rewrite
+ * by the header changing and start over from the beginning of the file.
+ */
+public class SharedFileSyncTransport implements SyncTransport {
+
+    private static final int TAIL_BYTES = 512;
+    private static final String SNAPSHOT_HEADER = "#snapshot\t";
+
+    private final File file;
+    private final Path lockPath;
+    private final long compactBytes;
+
+    // Offset just past the last line read, the sequence of that line, and the header seen at the time
+    private long readOffset;
+    private long readSequence = -1;
+    private String readHeader;
+
+    public SharedFileSyncTransport(File file, long compactBytes) {
+        this.file = file;
+        this.lockPath = new File(file.getPath() + ".lock").toPath();
+        this.compactBytes = compactBytes;
+    }
+
+    @Override
+    public LimitDelta publish(LimitDelta delta) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        try (FileChannel lock = openLock();
+             FileLock ignored = lock.lock()) {
+            LimitDelta sequenced;
+            long length;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                sequenced = delta.withSequence(readLastSequence(raf) + 1);
+                raf.seek(raf.length());
+                raf.write((sequenced.toLine() + "\n").getBytes(StandardCharsets.UTF_8));
+                length = raf.length();
+            }
+            if (compactBytes > 0 && length > compactBytes) {
+                compact(sequenced.sequence(), sequenced.origin());
+            }
+            return sequenced;
+        }
+    }
+
+    private FileChannel openLock() throws IOException {
+        return FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Rewrites the log as a snapshot of the table after {@code sequence}. Works on
+     * the raw fields, so limits on materials this server doesn't know survive.
+     * Must be called with the exclusive lock held.
+     */
+    private void compact(long sequence, String origin) throws IOException {
+        Map<String, String> table = new LinkedHashMap<>(); // Material name -> limit
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            String line;
+            while ((line = raf.readLine()) != null) {
+                if (parseSequence(line) < 0) continue;
+                String[] parts = line.split("\t");
+                if (parts.length != 6) continue;
+                switch (parts[3]) {
+                    case "ADD" -> table.put(parts[4], parts[5]);
+                    case "REMOVE" -> table.remove(parts[4]);
+                    case "CLEAR" -> table.clear();
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        StringBuilder snapshot = new StringBuilder(SNAPSHOT_HEADER).append(sequence).append('\n');
+        snapshot.append(sequence).append('\t').append(origin).append('\t').append(now).append("\tCLEAR\t-\t0\n");
+        for (Map.Entry<String, String> entry : table.entrySet()) {
+            snapshot.append(sequence).append('\t').append(origin).append('\t').append(now)
+                    .append("\tADD\t").append(entry.getKey()).append('\t').append(entry.getValue()).append('\n');
+        }
+
+        // Readers never see a partial snapshot: it only replaces the log once fully written
+        Path log = file.toPath();
+        Path temp = Files.createTempFile(log.toAbsolutePath().getParent(), file.getName(), ".tmp");
+        try {
+            Files.write(temp, snapshot.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, log, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public List<LimitDelta> fetchSince(long sequence) throws IOException {
+        List<LimitDelta> deltas = new ArrayList<>();
+        if (!file.exists()) return deltas;
+
+        try (FileChannel lock = openLock();
+             FileLock ignored = lock.lock(0L, Long.MAX_VALUE, true);
+             RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            // Continue where we stopped if the caller is at our last read position and the log wasn't compacted since
+            String header = raf.readLine();
+            boolean sameLog = header != null && header.equals(readHeader);
+            readHeader = header;
+            long offset = sameLog && sequence == readSequence && readOffset <= raf.length() ? readOffset : 0L;
+            raf.seek(offset);
+
+            String line;
+            while ((line = raf.readLine()) != null) {
+                long lineSequence = parseSequence(line);
+                if (lineSequence < 0) continue;
+                readOffset = raf.getFilePointer();
+                readSequence = lineSequence;
+                if (lineSequence > sequence) {
+                    LimitDelta delta = LimitDelta.fromLine(line);
+                    if (delta != null) {
+                        deltas.add(delta);
+                    }
+                }
+            }
+        }
+        return deltas;
+    }
+
+    private long readLastSequence(RandomAccessFile raf) throws IOException {
+        long length = raf.length();
+        if (length == 0) return 0L;
+
+        long start = Math.max(0L, length - TAIL_BYTES);
+        byte[] tail = new byte[(int) (length - start)];
+        raf.seek(start);
+        raf.readFully(tail);
+
+        String[] lines = new String(tail, StandardCharsets.UTF_8).split("\n");
+        for (int i = lines.length - 1; i >= 0; i--) {
+            long sequence = parseSequence(lines[i]);
+            if (sequence >= 0) return sequence;
+        }
+        return 0L;
+    }
+
+    private long parseSequence(String line) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0) return -1L;
+        try {
+            return Long.parseLong(line.substring(0, tab));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package net.saturn.itemlimiter.sync;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Carries limit table deltas between servers. Implementations must hand out
+ * strictly increasing sequence numbers so every node applies deltas in the
+ * same order. All methods are called from a single sync thread, never the main thread.
+ */
+public interface SyncTransport {
+
+    /**
+     * Publishes a delta and returns it with its assigned sequence number.
+     */
+    LimitDelta publish(LimitDelta delta) throws IOException;
+
+    /**
+     * Returns all deltas with a sequence number greater than {@code sequence}, in order.
+     */
+    List<LimitDelta> fetchSince(long sequence) throws IOException;
+
+    default void close() {
+    }
+}
@@ -0,0 +1,306 @@
+package net.saturn.itemlimiter.harness;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.destroystokyo.paper.event.server.ServerTickStartEvent;
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.BundleContents;
+import io.papermc.paper.datacomponent.item.ItemContainerContents;
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.Item;
+import org.bukkit.event.Event;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.Merchant;
+import org.bukkit.inventory.MerchantRecipe;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Headless load harness: loads the plugin on a MockBukkit server, gives thousands
+ * of simulated players randomized inventories (including shulker boxes and
+ * bundles holding limited items) and drives a seeded stream of click, drag,
+ * pickup and trade events through the real listeners, tick by tick. Reports CPU
+ * time per simulated tick and CPU time and allocations per event kind.
+ *
+ * Run with {@code ./gradlew enforcementHarness}; tune it with system properties
+ * harness.players, harness.ticks, harness.actions-per-tick and harness.seed.
+ * Same seed and settings give the same event stream, so runs before and after a
+ * change are comparable.
+ */
+public final class EnforcementLoadHarness {
+
+    private enum Kind { CLICK, SHIFT_CLICK, DRAG, PICKUP, TRADE }
+
+    private static final Material[] LIMITED = {
+            Material.TOTEM_OF_UNDYING, Material.ENCHANTED_GOLDEN_APPLE, Material.GOLDEN_APPLE, Material.ENDER_PEARL
+    };
+    private static final int[] LIMITS = {2, 1, 16, 32};
+    private static final Material[] FILLER = {
+            Material.COBBLESTONE, Material.OAK_LOG, Material.BREAD, Material.IRON_INGOT, Material.TORCH, Material.ARROW
+    };
+    private static final int WARMUP_TICKS = 20;
+
+    private static final class Stats {
+        long count;
+        long cpuNanos;
+        long allocBytes;
+        String unsupported;
+    }
+
+    private final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocations =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<Kind, Stats> stats = new EnumMap<>(Kind.class);
+    private final Random random;
+    private final ServerMock server;
+    private final World world;
+    private final List<PlayerMock> players = new ArrayList<>();
+    private final List<InventoryView> chestViews = new ArrayList<>();
+    private long tickCpuNanos;
+
+    private EnforcementLoadHarness(long seed) {
+        this.random = new Random(seed);
+        this.server = MockBukkit.mock();
+        this.world = server.addSimpleWorld("world");
+        for (Kind kind : Kind.values()) {
+            stats.put(kind, new Stats());
+        }
+    }
+
+    public static void main(String[] args) {
+        int playerCount = Integer.getInteger("harness.players", 2000);
+        int ticks = Integer.getInteger("harness.ticks", 400);
+        int actionsPerTick = Integer.getInteger("harness.actions-per-tick", 400);
+        long seed = Long.getLong("harness.seed", 42L);
+
+        EnforcementLoadHarness harness = new EnforcementLoadHarness(seed);
+        try {
+            harness.setUp(playerCount);
+            long[] tickNanos = harness.run(ticks, actionsPerTick);
+            harness.report(playerCount, actionsPerTick, seed, tickNanos);
+        } finally {
+            MockBukkit.unmock();
+        }
+    }
+
+    /* ============================================================
+       SETUP
+       ============================================================ */
+    private void setUp(int playerCount) {
+        ItemLimiter plugin = MockBukkit.load(ItemLimiter.class);
+        for (int i = 0; i < LIMITED.length; i++) {
+            plugin.getItemLimitManager().addItem(LIMITED[i], LIMITS[i]);
+        }
+        plugin.getItemLimitManager().addItem(Material.NETHERITE_SWORD, 0);
+
+        for (int i = 0; i < playerCount; i++) {
+            PlayerMock player = server.addPlayer();
+            fill(player.getInventory(), 36);
+            fill(player.getEnderChest(), 27);
+            players.add(player);
+
+            Inventory chest = server.createInventory(null, 27);
+            fill(chest, 27);
+            chestViews.add(player.openInventory(chest));
+        }
+    }
+
+    private void fill(Inventory inventory, int slots) {
+        for (int slot = 0; slot < slots; slot++) {
+            int roll = random.nextInt(100);
+            if (roll < 40) continue;
+            if (roll < 55) {
+                inventory.setItem(slot, limitedStack());
+            } else if (roll < 60) {
+                inventory.setItem(slot, shulkerBox());
+            } else if (roll < 64) {
+                inventory.setItem(slot, bundle());
+            } else {
+                inventory.setItem(slot, new ItemStack(FILLER[random.nextInt(FILLER.length)], 1 + random.nextInt(64)));
+            }
+        }
+    }
+
+    private ItemStack limitedStack() {
+        Material material = LIMITED[random.nextInt(LIMITED.length)];
+        return new ItemStack(material, 1 + random.nextInt(material.getMaxStackSize()));
+    }
+
+    private ItemStack shulkerBox() {
+        List<ItemStack> contents = new ArrayList<>(27);
+        for (int i = 0; i < 27; i++) {
+            contents.add(random.nextInt(3) == 0 ? limitedStack() : ItemStack.empty());
+        }
+        ItemStack box = new ItemStack(Material.SHULKER_BOX);
+        box.setData(DataComponentTypes.CONTAINER, ItemContainerContents.containerContents(contents));
+        return box;
+    }
+
+    private ItemStack bundle() {
+        List<ItemStack> contents = new ArrayList<>();
+        for (int i = 0, n = 1 + random.nextInt(4); i < n; i++) {
+            contents.add(new ItemStack(LIMITED[random.nextInt(LIMITED.length)]));
+        }
+        ItemStack bundle = new ItemStack(Material.BUNDLE);
+        bundle.setData(DataComponentTypes.BUNDLE_CONTENTS, BundleContents.bundleContents(contents));
+        return bundle;
+    }
+
+    /* ============================================================
+       SIMULATION
+       ============================================================ */
+    private long[] run(int ticks, int actionsPerTick) {
+        // Warm up the JIT on the same workload, then start measuring from a clean slate
+        for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+            tick(tick, actionsPerTick);
+        }
+        for (Stats s : stats.values()) {
+            s.count = 0;
+            s.cpuNanos = 0;
+            s.allocBytes = 0;
+        }
+
+        long[] tickNanos = new long[ticks];
+        for (int tick = 0; tick < ticks; tick++) {
+            tick(WARMUP_TICKS + tick, actionsPerTick);
+            tickNanos[tick] = tickCpuNanos;
+        }
+        return tickNanos;
+    }
+
+    /**
+     * Runs one simulated tick. Only plugin work counts toward {@link #tickCpuNanos}:
+     * tick events, event handlers and scheduled tasks, not building the events.
+     */
+    private void tick(int tick, int actionsPerTick) {
+        tickCpuNanos = 0;
+        ServerTickStartEvent start = new ServerTickStartEvent(tick);
+        long cpu = threads.getCurrentThreadCpuTime();
+        server.getPluginManager().callEvent(start);
+        tickCpuNanos += threads.getCurrentThreadCpuTime() - cpu;
+
+        for (int i = 0; i < actionsPerTick; i++) {
+            int index = random.nextInt(players.size());
+            Kind kind = Kind.values()[random.nextInt(Kind.values().length)];
+            act(kind, players.get(index), chestViews.get(index));
+        }
+
+        ServerTickEndEvent end = new ServerTickEndEvent(tick, 50.0, 0L);
+        cpu = threads.getCurrentThreadCpuTime();
+        server.getScheduler().performOneTick();
+        server.getPluginManager().callEvent(end);
+        tickCpuNanos += threads.getCurrentThreadCpuTime() - cpu;
+    }
+
+    private void act(Kind kind, PlayerMock player, InventoryView chestView) {
+        Stats s = stats.get(kind);
+        if (s.unsupported != null) return;
+
+        Event event;
+        try {
+            event = switch (kind) {
+                case CLICK -> new InventoryClickEvent(chestView, InventoryType.SlotType.CONTAINER,
+                        random.nextInt(27), ClickType.LEFT, InventoryAction.PICKUP_ALL);
+                case SHIFT_CLICK -> new InventoryClickEvent(chestView, InventoryType.SlotType.CONTAINER,
+                        random.nextInt(27), ClickType.SHIFT_LEFT, InventoryAction.MOVE_TO_OTHER_INVENTORY);
+                case DRAG -> drag(chestView);
+                case PICKUP -> pickup(player);
+                case TRADE -> trade(player);
+            };
+        } catch (UnsupportedOperationException e) {
+            // The mock doesn't implement something this event kind needs; report it instead of failing the run
+            s.unsupported = e.getClass().getSimpleName() + ": " + e.getMessage();
+            return;
+        }
+
+        long cpu = threads.getCurrentThreadCpuTime();
+        long alloc = allocations.getCurrentThreadAllocatedBytes();
+        server.getPluginManager().callEvent(event);
+        long spent = threads.getCurrentThreadCpuTime() - cpu;
+        s.cpuNanos += spent;
+        tickCpuNanos += spent;
+        s.allocBytes += allocations.getCurrentThreadAllocatedBytes() - alloc;
+        s.count++;
+
+        if (event instanceof EntityPickupItemEvent pickup) {
+            pickup.getItem().remove(); // Don't let dropped entities pile up in the world
+        }
+    }
+
+    private Event drag(InventoryView view) {
+        ItemStack cursor = limitedStack();
+        Map<Integer, ItemStack> slots = Map.of(view.getTopInventory().getSize() + random.nextInt(36), cursor.clone());
+        return new InventoryDragEvent(view, null, cursor, false, slots);
+    }
+
+    private Event pickup(PlayerMock player) {
+        ItemStack stack = random.nextInt(4) == 0 ? shulkerBox() : limitedStack();
+        Item item = world.dropItem(new Location(world, 0, 64, 0), stack);
+        return new EntityPickupItemEvent(player, item, 0);
+    }
+
+    private Event trade(PlayerMock player) {
+        Merchant merchant = server.createMerchant("Villager");
+        MerchantRecipe recipe = new MerchantRecipe(limitedStack(), 12);
+        recipe.addIngredient(new ItemStack(Material.EMERALD, 8));
+        merchant.setRecipes(List.of(recipe));
+
+        InventoryView view = player.openMerchant(merchant, true);
+        view.getTopInventory().setItem(0, new ItemStack(Material.EMERALD, 64));
+        view.getTopInventory().setItem(2, recipe.getResult());
+        return new InventoryClickEvent(view, InventoryType.SlotType.RESULT, 2,
+                random.nextBoolean() ? ClickType.SHIFT_LEFT : ClickType.LEFT,
+                InventoryAction.PICKUP_ALL);
+    }
+
+    /* ============================================================
+       REPORT
+       ============================================================ */
+    private void report(int playerCount, int actionsPerTick, long seed, long[] tickNanos) {
+        long[] sorted = tickNanos.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long nanos : sorted) {
+            total += nanos;
+        }
+
+        System.out.printf("Players: %d, actions/tick: %d, ticks: %d (+%d warm-up), seed: %d%n",
+                playerCount, actionsPerTick, sorted.length, WARMUP_TICKS, seed);
+        System.out.printf("CPU per tick: avg %.3f ms, p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                total / (double) sorted.length / 1e6, percentile(sorted, 0.50) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+        System.out.printf("%-12s %10s %12s %14s%n", "event", "count", "cpu/event", "alloc/event");
+        for (Map.Entry<Kind, Stats> entry : stats.entrySet()) {
+            Stats s = entry.getValue();
+            if (s.unsupported != null) {
+                System.out.printf("%-12s skipped (%s)%n", entry.getKey(), s.unsupported);
+            } else if (s.count > 0) {
+                System.out.printf("%-12s %10d %9.2f us %12d B%n", entry.getKey(), s.count,
+                        s.cpuNanos / (double) s.count / 1e3, s.allocBytes / s.count);
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,118 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.storage.AcquisitionLimit;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.EnumMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AcquisitionWindowCodecTest {
+
+    private AcquisitionLimitManager manager;
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        ItemLimiter plugin = MockBukkit.load(ItemLimiter.class);
+        manager = plugin.getAcquisitionLimitManager();
+        manager.setLimit(Material.DIAMOND, 64, 60);
+        manager.setLimit(Material.EMERALD, 16, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void varIntRoundTrips() throws IOException {
+        int[] values = {0, 1, 127, 128, 300, 16_383, 16_384, Integer.MAX_VALUE, -1};
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int value : values) {
+            AcquisitionLimitManager.writeVarInt(out, value);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (int value : values) {
+            assertEquals(value, AcquisitionLimitManager.readVarInt(in));
+        }
+    }
+
+    @Test
+    void smallVarIntsTakeOneByte() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AcquisitionLimitManager.writeVarInt(new DataOutputStream(bytes), 127);
+        assertEquals(1, bytes.size());
+    }
+
+    @Test
+    void truncatedVarIntFails() {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(new byte[]{(byte) 0x80}));
+        assertThrows(EOFException.class, () -> AcquisitionLimitManager.readVarInt(in));
+    }
+
+    @Test
+    void windowsRoundTrip() throws IOException {
+        long now = System.currentTimeMillis();
+        EnumMap<Material, AcquisitionLimitManager.Window> windows = new EnumMap<>(Material.class);
+        windows.put(Material.DIAMOND, window(60, now, 10));
+        windows.put(Material.EMERALD, window(10, now, 300));
+
+        EnumMap<Material, AcquisitionLimitManager.Window> decoded = manager.decode(manager.encode(windows));
+        assertEquals(10, decoded.get(Material.DIAMOND).sum());
+        assertEquals(300, decoded.get(Material.EMERALD).sum());
+    }
+
+    @Test
+    void emptyWindowsEncodeToNull() throws IOException {
+        EnumMap<Material, AcquisitionLimitManager.Window> windows = new EnumMap<>(Material.class);
+        windows.put(Material.DIAMOND, window(60, System.currentTimeMillis(), 0));
+        assertNull(manager.encode(windows));
+    }
+
+    @Test
+    void decodeSkipsWindowsOfRemovedOrResizedLimits() throws IOException {
+        long now = System.currentTimeMillis();
+        EnumMap<Material, AcquisitionLimitManager.Window> windows = new EnumMap<>(Material.class);
+        windows.put(Material.DIAMOND, window(60, now, 5));
+        windows.put(Material.EMERALD, window(10, now, 5));
+        String encoded = manager.encode(windows);
+
+        manager.removeLimit(Material.DIAMOND);
+        manager.setLimit(Material.EMERALD, 16, 20);
+
+        assertTrue(manager.decode(encoded).isEmpty());
+    }
+
+    @Test
+    void decodeRejectsUnknownFormat() {
+        String encoded = Base64.getEncoder().encodeToString(new byte[]{99});
+        assertThrows(IOException.class, () -> manager.decode(encoded));
+    }
+
+    private static AcquisitionLimitManager.Window window(int windowMinutes, long now, int amount) {
+        AcquisitionLimitManager.Window window = new AcquisitionLimitManager.Window(
+                AcquisitionLimitManager.bucketMillis(new AcquisitionLimit(64, windowMinutes)), now);
+        if (amount > 0) {
+            window.add(amount);
+        }
+        return window;
+    }
+}
@@ -0,0 +1,54 @@
+package net.saturn.itemlimiter.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnforcementRateLimiterTest {
+
+    // The slowest allowed refill: a token every 10 seconds, so none arrive during a test
+    private final EnforcementRateLimiter limiter = new EnforcementRateLimiter(3, 0.1);
+
+    @Test
+    void allowsABurstUpToCapacity() {
+        UUID player = UUID.randomUUID();
+        assertTrue(limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertTrue(limiter.tryAcquire(player));
+        assertFalse(limiter.tryAcquire(player));
+    }
+
+    @Test
+    void bucketsArePerPlayer() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(first);
+        }
+        assertFalse(limiter.tryAcquire(first));
+        assertTrue(limiter.tryAcquire(second));
+    }
+
+    @Test
+    void removeStartsAFullBucket() {
+        UUID player = UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire(player);
+        }
+        limiter.remove(player);
+        assertTrue(limiter.tryAcquire(player));
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        EnforcementRateLimiter fast = new EnforcementRateLimiter(1, 100.0); // A token every 10 ms
+        UUID player = UUID.randomUUID();
+        assertTrue(fast.tryAcquire(player));
+        assertFalse(fast.tryAcquire(player));
+        Thread.sleep(50L);
+        assertTrue(fast.tryAcquire(player));
+    }
+}
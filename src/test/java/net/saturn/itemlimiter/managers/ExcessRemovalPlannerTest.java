@@ -0,0 +1,131 @@
+package net.saturn.itemlimiter.managers;
+
+import io.papermc.paper.datacomponent.DataComponentTypes;
+import io.papermc.paper.datacomponent.item.ItemContainerContents;
+import net.saturn.itemlimiter.ItemLimiter;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExcessRemovalPlannerTest {
+
+    private ItemLimitManager manager;
+    private PlayerMock player;
+
+    @BeforeEach
+    void setUp() {
+        ServerMock server = MockBukkit.mock();
+        ItemLimiter plugin = MockBukkit.load(ItemLimiter.class);
+        manager = plugin.getItemLimitManager();
+        manager.addItem(Material.TOTEM_OF_UNDYING, 2);
+        manager.addItem(Material.ENDER_PEARL, 16);
+        player = server.addPlayer();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void nothingToRemoveWithinLimits() {
+        player.getInventory().setItem(0, new ItemStack(Material.TOTEM_OF_UNDYING, 2));
+        player.getInventory().setItem(1, new ItemStack(Material.ENDER_PEARL, 16));
+
+        assertTrue(manager.planExcessRemoval(player, manager.getLimitedItems().keySet()).isEmpty());
+    }
+
+    @Test
+    void takesExcessInSlotOrder() {
+        player.getInventory().setItem(3, new ItemStack(Material.TOTEM_OF_UNDYING, 1));
+        player.getInventory().setItem(5, new ItemStack(Material.TOTEM_OF_UNDYING, 1));
+        player.getInventory().setItem(8, new ItemStack(Material.TOTEM_OF_UNDYING, 1));
+        player.getInventory().setItem(9, new ItemStack(Material.ENDER_PEARL, 16));
+
+        ExcessRemovalPlan plan = manager.planExcessRemoval(player, manager.getLimitedItems().keySet());
+
+        List<ExcessRemovalPlan.Removal> removals = plan.getRemovals();
+        assertEquals(1, removals.size());
+        ExcessRemovalPlan.Removal removal = removals.get(0);
+        assertEquals(Material.TOTEM_OF_UNDYING, removal.material());
+        assertEquals(3, removal.slot());
+        assertEquals(1, removal.amount());
+        assertFalse(removal.enderChest());
+        assertFalse(removal.isNested());
+        assertEquals(1, plan.getTotals().get(Material.TOTEM_OF_UNDYING));
+    }
+
+    @Test
+    void splitsAcrossStacks() {
+        player.getInventory().setItem(0, new ItemStack(Material.ENDER_PEARL, 10));
+        player.getInventory().setItem(1, new ItemStack(Material.ENDER_PEARL, 16));
+
+        ExcessRemovalPlan plan = manager.planExcessRemoval(player, Set.of(Material.ENDER_PEARL));
+
+        assertEquals(10, plan.getTotals().get(Material.ENDER_PEARL));
+        assertEquals(1, plan.getRemovals().size());
+        assertEquals(0, plan.getRemovals().get(0).slot());
+        assertEquals(10, plan.getRemovals().get(0).amount());
+    }
+
+    @Test
+    void onlyPlansRequestedMaterials() {
+        player.getInventory().setItem(0, new ItemStack(Material.TOTEM_OF_UNDYING, 5));
+        player.getInventory().setItem(1, new ItemStack(Material.ENDER_PEARL, 32));
+
+        ExcessRemovalPlan plan = manager.planExcessRemoval(player, Set.of(Material.ENDER_PEARL));
+
+        assertEquals(Set.of(Material.ENDER_PEARL), plan.getTotals().keySet());
+    }
+
+    @Test
+    void plansNestedRemovalsWithTheirPath() {
+        ItemStack box = new ItemStack(Material.SHULKER_BOX);
+        box.setData(DataComponentTypes.CONTAINER, ItemContainerContents.containerContents(List.of(
+                new ItemStack(Material.COBBLESTONE, 64),
+                new ItemStack(Material.TOTEM_OF_UNDYING, 1),
+                new ItemStack(Material.TOTEM_OF_UNDYING, 1))));
+        player.getInventory().setItem(4, box);
+        player.getInventory().setItem(6, new ItemStack(Material.TOTEM_OF_UNDYING, 1));
+
+        ExcessRemovalPlan plan = manager.planExcessRemoval(player, Set.of(Material.TOTEM_OF_UNDYING));
+
+        ExcessRemovalPlan.Removal removal = plan.getRemovals().get(0);
+        assertEquals(1, plan.getRemovals().size());
+        assertEquals(4, removal.slot());
+        assertTrue(removal.isNested());
+        assertArrayEquals(new int[]{1}, removal.path());
+        assertEquals(1, removal.amount());
+    }
+
+    @Test
+    void fallsBackToTheEnderChest() {
+        player.getInventory().setItem(0, new ItemStack(Material.TOTEM_OF_UNDYING, 1));
+        player.getEnderChest().setItem(2, new ItemStack(Material.TOTEM_OF_UNDYING, 3));
+        manager.getEnderChestCache().invalidate(player);
+
+        ExcessRemovalPlan plan = manager.planExcessRemoval(player, Set.of(Material.TOTEM_OF_UNDYING));
+
+        List<ExcessRemovalPlan.Removal> removals = plan.getRemovals();
+        assertEquals(2, removals.size());
+        assertEquals(0, removals.get(0).slot());
+        assertFalse(removals.get(0).enderChest());
+        assertEquals(1, removals.get(0).amount());
+        assertTrue(removals.get(1).enderChest());
+        assertEquals(2, removals.get(1).slot());
+        assertEquals(1, removals.get(1).amount());
+    }
+}
@@ -0,0 +1,79 @@
+package net.saturn.itemlimiter.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingSketchTest {
+
+    @Test
+    void countsExactlyWhileCountersAreFree() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(4);
+        sketch.offer("a", "A", 3);
+        sketch.offer("b", "B", 1);
+        sketch.offer("a", "A2", 2);
+
+        List<SpaceSavingSketch.Entry<String>> top = sketch.top(10);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).key());
+        assertEquals("A2", top.get(0).label());
+        assertEquals(5, top.get(0).count());
+        assertEquals(0, top.get(0).error());
+        assertEquals(1, top.get(1).count());
+    }
+
+    @Test
+    void newKeyReplacesTheSmallestCounterAndInheritsItsCount() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(2);
+        sketch.offer("a", "a", 5);
+        sketch.offer("b", "b", 2);
+        sketch.offer("c", "c", 1);
+
+        List<SpaceSavingSketch.Entry<String>> top = sketch.top(10);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).key());
+        assertEquals("c", top.get(1).key());
+        assertEquals(3, top.get(1).count());
+        assertEquals(2, top.get(1).error());
+    }
+
+    @Test
+    void keepsEveryHeavyHitter() {
+        SpaceSavingSketch<Integer> sketch = new SpaceSavingSketch<>(8);
+        long total = 0;
+        // Two heavy keys in a long tail of one-off keys
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer(-1, "heavy", 1);
+            sketch.offer(i, "tail", 1);
+            total += 2;
+            if (i % 2 == 0) {
+                sketch.offer(-2, "second", 1);
+                total++;
+            }
+        }
+
+        List<SpaceSavingSketch.Entry<Integer>> top = sketch.top(2);
+        assertEquals(-1, top.get(0).key());
+        assertEquals(-2, top.get(1).key());
+        for (SpaceSavingSketch.Entry<Integer> entry : top) {
+            assertTrue(entry.count() > total / 8);
+        }
+        // Counts never underestimate, and count - error never overestimates
+        assertTrue(top.get(0).count() >= 1000);
+        assertTrue(top.get(0).count() - top.get(0).error() <= 1000);
+    }
+
+    @Test
+    void topIsLimited() {
+        SpaceSavingSketch<String> sketch = new SpaceSavingSketch<>(4);
+        assertTrue(sketch.isEmpty());
+        sketch.offer("a", "a", 1);
+        sketch.offer("b", "b", 2);
+        sketch.offer("c", "c", 3);
+        assertEquals(1, sketch.top(1).size());
+        assertEquals("c", sketch.top(1).get(0).key());
+    }
+}
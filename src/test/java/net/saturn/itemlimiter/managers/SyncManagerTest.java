@@ -0,0 +1,98 @@
+package net.saturn.itemlimiter.managers;
+
+import net.saturn.itemlimiter.ItemLimiter;
+import net.saturn.itemlimiter.sync.LimitDelta;
+import net.saturn.itemlimiter.sync.SharedFileSyncTransport;
+import org.bukkit.Material;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class SyncManagerTest {
+
+    @TempDir
+    Path dir;
+
+    private ServerMock server;
+    private ItemLimiter plugin;
+    private File log;
+    private SharedFileSyncTransport remote; // Another node writing to the same log
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.load(ItemLimiter.class);
+        log = dir.resolve("limit-deltas.log").toFile();
+        remote = new SharedFileSyncTransport(log, 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void replaysRemoteDeltasInOrder() throws IOException {
+        remote.publish(LimitDelta.add("remote", Material.DIAMOND, 5));
+        remote.publish(LimitDelta.add("remote", Material.EMERALD, 3));
+        remote.publish(LimitDelta.add("remote", Material.DIAMOND, 2));
+        remote.publish(LimitDelta.remove("remote", Material.EMERALD));
+        remote.publish(LimitDelta.add("remote", Material.GOLD_INGOT, 1));
+        startSync();
+
+        ItemLimitManager manager = plugin.getItemLimitManager();
+        await(() -> manager.getLimit(Material.GOLD_INGOT) != null);
+        assertEquals(2, manager.getLimit(Material.DIAMOND));
+        assertNull(manager.getLimit(Material.EMERALD));
+    }
+
+    @Test
+    void rejectsNegativeRemoteLimits() throws IOException {
+        remote.publish(LimitDelta.add("remote", Material.DIAMOND, -1));
+        remote.publish(LimitDelta.add("remote", Material.GOLD_INGOT, 1));
+        startSync();
+
+        ItemLimitManager manager = plugin.getItemLimitManager();
+        await(() -> manager.getLimit(Material.GOLD_INGOT) != null);
+        assertNull(manager.getLimit(Material.DIAMOND));
+    }
+
+    /**
+     * Starts polling once the remote deltas are written: file locks taken by two
+     * transports of the same JVM at once would overlap.
+     */
+    private void startSync() {
+        plugin.getSyncManager().start(new SharedFileSyncTransport(log, 0L));
+    }
+
+    /**
+     * Ticks the mock server until the sync thread's batch has been applied on the main thread.
+     */
+    private void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Deltas were not applied in time");
+            }
+            server.getScheduler().performOneTick();
+            try {
+                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package net.saturn.itemlimiter.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PlayerDataReaderTest {
+
+    private static final String TOTEM = "minecraft:totem_of_undying";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void countsInventoryEnderChestAndEquipment() throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("DataVersion", 4440);
+        root.put("Inventory", List.of(item(TOTEM, 1), item("minecraft:stone", 64), item(TOTEM, 2)));
+        root.put("EnderItems", List.of(item(TOTEM, 3)));
+        root.put("equipment", Map.of("offhand", item(TOTEM, 1), "head", item("minecraft:diamond_helmet", 1)));
+        root.put("Pos", List.of(0.5d, 64.0d, 0.5d));
+
+        assertEquals(7, PlayerDataReader.countItem(write(root), TOTEM));
+        assertEquals(64, PlayerDataReader.countItem(write(root), "minecraft:stone"));
+    }
+
+    @Test
+    void countsNestedContainersAndBundles() throws IOException {
+        Map<String, Object> bundle = item("minecraft:bundle", 1);
+        bundle.put("components", Map.of("minecraft:bundle_contents", List.of(item(TOTEM, 2))));
+
+        Map<String, Object> box = item("minecraft:shulker_box", 1);
+        box.put("components", Map.of("minecraft:container", List.of(
+                Map.of("slot", 0, "item", item(TOTEM, 1)),
+                Map.of("slot", 1, "item", bundle))));
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("Inventory", List.of(box));
+
+        assertEquals(3, PlayerDataReader.countItem(write(root), TOTEM));
+    }
+
+    @Test
+    void readsPre1205Counts() throws IOException {
+        Map<String, Object> legacy = new LinkedHashMap<>();
+        legacy.put("id", TOTEM);
+        legacy.put("Count", (byte) 5);
+
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("Inventory", List.of(legacy));
+
+        assertEquals(5, PlayerDataReader.countItem(write(root), TOTEM));
+    }
+
+    @Test
+    void skipsArraysAndUnknownFields() throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("UUID", new int[]{1, 2, 3, 4});
+        root.put("seed", 42L);
+        root.put("Inventory", List.of(item(TOTEM, 1)));
+        root.put("abilities", Map.of("flying", (byte) 0, "walkSpeed", 0.1f));
+
+        assertEquals(1, PlayerDataReader.countItem(write(root), TOTEM));
+    }
+
+    @Test
+    void rejectsNonCompoundRoot() throws IOException {
+        File file = dir.resolve("bad.dat").toFile();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeByte(8);
+            out.writeUTF("");
+            out.writeUTF("not a compound");
+        }
+        assertThrows(IOException.class, () -> PlayerDataReader.countItem(file, TOTEM));
+    }
+
+    private static Map<String, Object> item(String id, int count) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put("count", count);
+        return item;
+    }
+
+    /* ============================================================
+       NBT WRITER
+       Just enough of the format to build playerdata files.
+       ============================================================ */
+    private File write(Map<String, Object> root) throws IOException {
+        File file = Files.createTempFile(dir, "player", ".dat").toFile();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeByte(10);
+            out.writeUTF("");
+            writeCompound(out, root);
+        }
+        return file;
+    }
+
+    private static void writeCompound(DataOutputStream out, Map<?, ?> compound) throws IOException {
+        for (Map.Entry<?, ?> entry : compound.entrySet()) {
+            out.writeByte(type(entry.getValue()));
+            out.writeUTF((String) entry.getKey());
+            writePayload(out, entry.getValue());
+        }
+        out.writeByte(0);
+    }
+
+    private static void writePayload(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Byte b) {
+            out.writeByte(b);
+        } else if (value instanceof Short s) {
+            out.writeShort(s);
+        } else if (value instanceof Integer i) {
+            out.writeInt(i);
+        } else if (value instanceof Long l) {
+            out.writeLong(l);
+        } else if (value instanceof Float f) {
+            out.writeFloat(f);
+        } else if (value instanceof Double d) {
+            out.writeDouble(d);
+        } else if (value instanceof String s) {
+            out.writeUTF(s);
+        } else if (value instanceof int[] array) {
+            out.writeInt(array.length);
+            for (int i : array) {
+                out.writeInt(i);
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(list.isEmpty() ? 0 : type(list.get(0)));
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writePayload(out, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            writeCompound(out, map);
+        } else {
+            throw new IllegalArgumentException("Unsupported tag " + value.getClass());
+        }
+    }
+
+    private static int type(Object value) {
+        if (value instanceof Byte) return 1;
+        if (value instanceof Short) return 2;
+        if (value instanceof Integer) return 3;
+        if (value instanceof Long) return 4;
+        if (value instanceof Float) return 5;
+        if (value instanceof Double) return 6;
+        if (value instanceof String) return 8;
+        if (value instanceof List<?>) return 9;
+        if (value instanceof Map<?, ?>) return 10;
+        if (value instanceof int[]) return 11;
+        throw new IllegalArgumentException("Unsupported tag " + value.getClass());
+    }
+}
@@ -0,0 +1,30 @@
+package net.saturn.itemlimiter.sync;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LimitDeltaTest {
+
+    @Test
+    void lineRoundTrips() {
+        LimitDelta add = LimitDelta.add("node-a", Material.DIAMOND, 5).withSequence(7);
+        assertEquals(add, LimitDelta.fromLine(add.toLine()));
+
+        LimitDelta remove = LimitDelta.remove("node-a", Material.DIAMOND).withSequence(8);
+        assertEquals(remove, LimitDelta.fromLine(remove.toLine()));
+
+        LimitDelta clear = LimitDelta.clear("node-b").withSequence(9);
+        assertEquals(clear, LimitDelta.fromLine(clear.toLine()));
+    }
+
+    @Test
+    void malformedLinesAreRejected() {
+        assertNull(LimitDelta.fromLine("1\tnode\t0\tADD\tDIAMOND"));
+        assertNull(LimitDelta.fromLine("x\tnode\t0\tADD\tDIAMOND\t5"));
+        assertNull(LimitDelta.fromLine("1\tnode\t0\tRENAME\tDIAMOND\t5"));
+        assertNull(LimitDelta.fromLine("1\tnode\t0\tADD\tNOT_A_MATERIAL\t5"));
+    }
+}
@@ -0,0 +1,112 @@
+package net.saturn.itemlimiter.sync;
+
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SharedFileSyncTransportTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void assignsIncreasingSequences() throws IOException {
+        SharedFileSyncTransport transport = new SharedFileSyncTransport(log(), 0L);
+        assertEquals(1L, transport.publish(LimitDelta.add("a", Material.DIAMOND, 5)).sequence());
+        assertEquals(2L, transport.publish(LimitDelta.add("a", Material.EMERALD, 3)).sequence());
+
+        // A second node sharing the file continues the same sequence
+        SharedFileSyncTransport other = new SharedFileSyncTransport(log(), 0L);
+        assertEquals(3L, other.publish(LimitDelta.remove("b", Material.DIAMOND)).sequence());
+    }
+
+    @Test
+    void fetchesOnlyNewerDeltasInOrder() throws IOException {
+        SharedFileSyncTransport writer = new SharedFileSyncTransport(log(), 0L);
+        SharedFileSyncTransport reader = new SharedFileSyncTransport(log(), 0L);
+        writer.publish(LimitDelta.add("a", Material.DIAMOND, 5));
+        writer.publish(LimitDelta.add("a", Material.EMERALD, 3));
+
+        List<LimitDelta> first = reader.fetchSince(0L);
+        assertEquals(List.of(1L, 2L), first.stream().map(LimitDelta::sequence).toList());
+
+        writer.publish(LimitDelta.remove("a", Material.DIAMOND));
+        List<LimitDelta> second = reader.fetchSince(2L);
+        assertEquals(1, second.size());
+        assertEquals(LimitDelta.Operation.REMOVE, second.get(0).operation());
+        assertTrue(reader.fetchSince(3L).isEmpty());
+    }
+
+    @Test
+    void compactionKeepsTheReplayedTable() throws IOException {
+        // Compacts whenever the log passes 200 bytes
+        SharedFileSyncTransport writer = new SharedFileSyncTransport(log(), 200L);
+        SharedFileSyncTransport reader = new SharedFileSyncTransport(log(), 0L);
+        for (int i = 0; i < 20; i++) {
+            writer.publish(LimitDelta.add("a", Material.DIAMOND, i));
+            writer.publish(LimitDelta.add("a", Material.EMERALD, 1));
+            writer.publish(LimitDelta.remove("a", Material.EMERALD));
+        }
+        long last = writer.publish(LimitDelta.add("a", Material.GOLD_INGOT, 7)).sequence();
+        assertEquals(61L, last);
+
+        assertTrue(Files.size(log().toPath()) < 1000L);
+        assertTrue(Files.readAllLines(log().toPath()).get(0).startsWith("#snapshot"));
+
+        Map<Material, Integer> table = replay(reader.fetchSince(0L));
+        assertEquals(Map.of(Material.DIAMOND, 19, Material.GOLD_INGOT, 7), table);
+
+        // Nothing left behind by the atomic rewrite
+        try (var files = Files.list(dir)) {
+            assertEquals(0L, files.filter(path -> path.toString().endsWith(".tmp")).count());
+        }
+        // Sequences keep counting from the last one after a compaction
+        assertEquals(last + 1, writer.publish(LimitDelta.clear("a")).sequence());
+    }
+
+    @Test
+    void readerStartsOverAfterACompaction() throws IOException {
+        SharedFileSyncTransport writer = new SharedFileSyncTransport(log(), 0L);
+        SharedFileSyncTransport reader = new SharedFileSyncTransport(log(), 0L);
+        writer.publish(LimitDelta.add("a", Material.DIAMOND, 5));
+        assertEquals(1, reader.fetchSince(0L).size());
+
+        // Another node compacts the log behind the reader's back
+        SharedFileSyncTransport compacting = new SharedFileSyncTransport(log(), 1L);
+        long sequence = compacting.publish(LimitDelta.add("b", Material.EMERALD, 2)).sequence();
+
+        List<LimitDelta> deltas = reader.fetchSince(1L);
+        assertTrue(deltas.stream().allMatch(delta -> delta.sequence() == sequence));
+        assertEquals(Map.of(Material.DIAMOND, 5, Material.EMERALD, 2), replay(deltas));
+    }
+
+    private File log() {
+        return dir.resolve("limit-deltas.log").toFile();
+    }
+
+    /**
+     * Applies deltas the way the sync manager does, to a plain table.
+     */
+    private static Map<Material, Integer> replay(List<LimitDelta> deltas) {
+        Map<Material, Integer> table = new EnumMap<>(Material.class);
+        for (LimitDelta delta : deltas) {
+            switch (delta.operation()) {
+                case ADD -> table.put(delta.material(), delta.limit());
+                case REMOVE -> table.remove(delta.material());
+                case CLEAR -> table.clear();
+            }
+        }
+        return table;
+    }
+}